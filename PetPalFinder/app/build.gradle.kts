@@ -1,3 +1,6 @@
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
 plugins {
     id("com.android.application")
     id("androidx.navigation.safeargs") // Java Safe Args plugin
@@ -32,6 +35,10 @@ android {
         resValue("string", "mapbox_access_token", mapboxToken)
         manifestPlaceholders["MAPBOX_ACCESS_TOKEN"] = mapboxToken
         buildConfigField("String", "MAPBOX_PUBLIC_TOKEN", "\"$mapboxToken\"")
+
+        // Paging comparison: -PPAGING_FIXED_SIZE=100 builds with fixed pages instead of adaptive ones
+        val fixedPageSize = (project.findProperty("PAGING_FIXED_SIZE") as String?)?.toIntOrNull() ?: 0
+        buildConfigField("int", "PAGING_FIXED_SIZE", "$fixedPageSize")
     }
 
     buildTypes {
@@ -59,9 +66,72 @@ android {
         targetCompatibility = JavaVersion.VERSION_17
     }
 
+    // centroids.bin is memory-mapped at runtime by CentroidTable, which needs it stored uncompressed
+    androidResources {
+        noCompress += "bin"
+    }
+
     packaging {
         resources.excludes += setOf("/META-INF/{AL2.0,LGPL2.1}")
     }
+
+    // Local unit tests run classes that log; android.util.Log calls return instead of throwing
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+    }
+}
+
+// Compiles centroids/centroids.csv into the binary table CentroidTable maps (format documented there)
+abstract class GenerateCentroidsTask : DefaultTask() {
+    @get:InputFile
+    abstract val source: RegularFileProperty
+
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+
+    @TaskAction
+    fun generate() {
+        val records = source.get().asFile.readLines()
+            .map { it.trim() }
+            .filter { it.isNotEmpty() && !it.startsWith("#") }
+            .map { line ->
+                val parts = line.split(",")
+                require(parts.size == 3) { "Bad centroid line: $line" }
+                val key = parts[0].trim()
+                require(key == key.lowercase()) { "Centroid keys are lowercase: $key" }
+                Triple(fnv1a64(key), parts[1].trim().toFloat(), parts[2].trim().toFloat())
+            }
+            .sortedBy { it.first } // signed, as CentroidTable compares them
+        records.zipWithNext().forEach { (a, b) ->
+            require(a.first != b.first) { "Duplicate centroid key hash ${a.first}" }
+        }
+
+        val buf = ByteBuffer.allocate(16 + records.size * 16).order(ByteOrder.LITTLE_ENDIAN)
+        buf.putInt(0x54435050).putInt(1).putInt(records.size).putInt(0)
+        records.forEach { (hash, lat, lng) -> buf.putLong(hash).putFloat(lat).putFloat(lng) }
+        val out = outputDir.get().file("centroids.bin").asFile
+        out.parentFile.mkdirs()
+        out.writeBytes(buf.array())
+    }
+
+    private fun fnv1a64(key: String): Long {
+        var h = 0xcbf29ce484222325UL.toLong()
+        for (b in key.toByteArray(Charsets.UTF_8)) {
+            h = h xor (b.toLong() and 0xff)
+            h *= 0x100000001b3L
+        }
+        return h
+    }
+}
+
+val generateCentroids = tasks.register<GenerateCentroidsTask>("generateCentroids") {
+    source.set(layout.projectDirectory.file("centroids/centroids.csv"))
+}
+
+androidComponents {
+    onVariants { variant ->
+        variant.sources.assets?.addGeneratedSourceDirectory(generateCentroids, GenerateCentroidsTask::outputDir)
+    }
 }
 
 dependencies {
@@ -0,0 +1,105 @@
+package com.example.petpalfinder.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.petpalfinder.model.petfinder.Animal;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared instances for the low-cardinality {@link Animal} fields (type, species, age, gender, size,
+ * status, coat), so thousands of parsed animals point at a handful of strings instead of holding
+ * their own copies.
+ *
+ * Each field has its own {@link Dictionary} that hands out the canonical instance and a small code
+ * per value. Petfinder's documented values are registered up front; others are added as they are
+ * seen, up to the dictionary's capacity, after which values are passed through unshared. The
+ * "age • gender • size" line shown in lists is memoized by the codes of its three parts.
+ * Thread-safe.
+ */
+public final class AnimalVocabulary {
+
+    /** Canonical values and codes for one field. Code 0 is null; -1 means the dictionary is full. */
+    public static final class Dictionary {
+        private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+        private final String[] values;
+        private int size = 1;
+
+        Dictionary(int capacity, String... known) {
+            values = new String[capacity];
+            for (String v : known) intern(v);
+        }
+
+        /** The shared instance equal to {@code value}, or {@code value} itself once the dictionary is full. */
+        @Nullable
+        public String intern(@Nullable String value) {
+            if (value == null) return null;
+            int code = code(value);
+            return (code > 0) ? values[code] : value;
+        }
+
+        public int code(@Nullable String value) {
+            if (value == null) return 0;
+            Integer code = codes.get(value);
+            if (code != null) return code;
+            synchronized (this) {
+                code = codes.get(value);
+                if (code != null) return code;
+                if (size == values.length) return -1;
+                values[size] = value;
+                codes.put(value, size);
+                return size++;
+            }
+        }
+    }
+
+    // Meta line parts get small dictionaries so the memo table stays a flat 16x16x16 array
+    private static final int META_CAPACITY = 16;
+
+    public static final Dictionary TYPES = new Dictionary(64,
+            "Dog", "Cat", "Rabbit", "Small & Furry", "Horse", "Bird", "Scales, Fins & Other", "Barnyard");
+    public static final Dictionary SPECIES = new Dictionary(128,
+            "Dog", "Cat", "Rabbit", "Guinea Pig", "Hamster", "Rat", "Mouse", "Ferret", "Chinchilla",
+            "Horse", "Pony", "Parrot", "Chicken", "Duck", "Goat", "Pig", "Turtle", "Lizard", "Snake", "Fish");
+    public static final Dictionary AGES = new Dictionary(META_CAPACITY, "Baby", "Young", "Adult", "Senior");
+    public static final Dictionary GENDERS = new Dictionary(META_CAPACITY, "Male", "Female", "Unknown");
+    public static final Dictionary SIZES = new Dictionary(META_CAPACITY, "Small", "Medium", "Large", "Extra Large");
+    public static final Dictionary STATUSES = new Dictionary(16, "adoptable", "adopted", "found");
+    public static final Dictionary COATS = new Dictionary(16, "Hairless", "Short", "Medium", "Long", "Wire", "Curly");
+
+    private static final String[] META = new String[META_CAPACITY * META_CAPACITY * META_CAPACITY];
+
+    private AnimalVocabulary() {}
+
+    /** Replaces the dictionary-encoded fields of {@code a} with their shared instances. */
+    public static void canonicalize(@Nullable Animal a) {
+        if (a == null) return;
+        a.type = TYPES.intern(a.type);
+        a.species = SPECIES.intern(a.species);
+        a.age = AGES.intern(a.age);
+        a.gender = GENDERS.intern(a.gender);
+        a.size = SIZES.intern(a.size);
+        a.status = STATUSES.intern(a.status);
+        a.coat = COATS.intern(a.coat);
+    }
+
+    /** "age • gender • size" with "?" for a missing part, built once per combination. */
+    @NonNull
+    public static String meta(@Nullable String age, @Nullable String gender, @Nullable String size) {
+        int a = AGES.code(age), g = GENDERS.code(gender), s = SIZES.code(size);
+        if (a < 0 || g < 0 || s < 0) return buildMeta(age, gender, size);
+        int slot = (a * META_CAPACITY + g) * META_CAPACITY + s;
+        String meta = META[slot];
+        if (meta == null) {
+            // Racing threads build equal strings; either one may win
+            meta = buildMeta(age, gender, size);
+            META[slot] = meta;
+        }
+        return meta;
+    }
+
+    private static String buildMeta(@Nullable String age, @Nullable String gender, @Nullable String size) {
+        return (age != null ? age : "?") + " • " + (gender != null ? gender : "?") + " • " + (size != null ? size : "?");
+    }
+}
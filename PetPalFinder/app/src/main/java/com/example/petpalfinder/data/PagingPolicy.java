@@ -0,0 +1,64 @@
+package com.example.petpalfinder.data;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Chooses the {@code limit} for each Petfinder page request.
+ *
+ * Petfinder pages by {@code page}/{@code limit}, so a request only starts at offset {@code o} if
+ * {@code o} is a multiple of its limit. {@link #limitFor} therefore returns the largest size up to
+ * the maximum that divides the offset: an adaptive policy starting at 25 yields 25, 25, 50, 100,
+ * 100... and every page starts exactly where the previous one ended.
+ *
+ * The size never drops below the first page's. When a short page leaves the offset off that grid,
+ * the request goes out at the maximum size from the page that contains the offset, and the caller
+ * drops the {@link #skipFor leading rows} it already has. The next offset is a multiple of the
+ * maximum again.
+ */
+public final class PagingPolicy {
+    public static final int MAX_LIMIT = 100; // Petfinder's cap
+
+    @NonNull public final String name;
+    private final int first;
+    private final int max;
+
+    private PagingPolicy(@NonNull String name, int first, int max) {
+        this.name = name;
+        this.first = Math.max(1, Math.min(MAX_LIMIT, first));
+        this.max = Math.max(this.first, Math.min(MAX_LIMIT, max));
+    }
+
+    /** Every page the same size, the old behaviour. */
+    public static PagingPolicy fixed(int size) {
+        return new PagingPolicy("fixed-" + size, size, size);
+    }
+
+    /** Small first page for a fast first row, then growing toward {@code max}. */
+    public static PagingPolicy adaptive(int first, int max) {
+        return new PagingPolicy("adaptive-" + first + "-" + max, first, max);
+    }
+
+    /** Limit for the request starting at {@code offset} rows; at least the first page's size. */
+    public int limitFor(int offset) {
+        if (offset <= 0) return first;
+        for (int l = Math.min(max, offset); l >= first; l--) {
+            if (offset % l == 0) return l;
+        }
+        return max; // misaligned, realign with one overlapping page
+    }
+
+    /** Rows at the start of the page for {@code offset} that come before it and must be dropped. */
+    public static int skipFor(int offset, int limit) {
+        return offset % Math.max(1, limit);
+    }
+
+    /** 1-based Petfinder page number for a request at {@code offset} with {@code limit}. */
+    public static int pageFor(int offset, int limit) {
+        return offset / Math.max(1, limit) + 1;
+    }
+
+    @NonNull @Override
+    public String toString() {
+        return name;
+    }
+}
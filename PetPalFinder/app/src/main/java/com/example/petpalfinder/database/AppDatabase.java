@@ -5,15 +5,39 @@ import android.content.Context;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
-@Database(entities = {FavoriteAnimal.class}, version = 1, exportSchema = false)
+@Database(entities = {FavoriteAnimal.class, GeocodeEntry.class, ReverseGeocodeEntry.class}, version = 3,
+        exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
 
     public abstract FavoriteDao favoriteDao();
 
+    public abstract GeocodeDao geocodeDao();
+
+    // Adds the geocode cache without touching existing favorites
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `geocode_cache` (`query` TEXT NOT NULL, "
+                    + "`lat` REAL NOT NULL, `lng` REAL NOT NULL, `found` INTEGER NOT NULL, "
+                    + "`writtenAt` INTEGER NOT NULL, `ttlMillis` INTEGER NOT NULL, PRIMARY KEY(`query`))");
+        }
+    };
+
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `reverse_geocode_cache` (`cell` TEXT NOT NULL, "
+                    + "`formatted` TEXT, `writtenAt` INTEGER NOT NULL, `ttlMillis` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`cell`))");
+        }
+    };
+
     private static volatile AppDatabase INSTANCE;
     private static final int NUMBER_OF_THREADS = 4;
     public static final ExecutorService databaseWriteExecutor =
@@ -25,6 +49,7 @@ public abstract class AppDatabase extends RoomDatabase {
                 if (INSTANCE == null) {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                                     AppDatabase.class, "pet_database")
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3)
                             .build();
                 }
             }
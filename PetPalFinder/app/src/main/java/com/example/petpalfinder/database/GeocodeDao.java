@@ -0,0 +1,29 @@
+package com.example.petpalfinder.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface GeocodeDao {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(GeocodeEntry entry);
+
+    @Query("SELECT * FROM geocode_cache WHERE `query` = :query LIMIT 1")
+    GeocodeEntry find(String query);
+
+    @Query("DELETE FROM geocode_cache WHERE writtenAt + ttlMillis < :now")
+    int deleteExpired(long now);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertReverse(ReverseGeocodeEntry entry);
+
+    @Query("SELECT * FROM reverse_geocode_cache WHERE writtenAt + ttlMillis >= :now")
+    List<ReverseGeocodeEntry> freshReverse(long now);
+
+    @Query("DELETE FROM reverse_geocode_cache WHERE writtenAt + ttlMillis < :now")
+    int deleteExpiredReverse(long now);
+}
@@ -0,0 +1,25 @@
+package com.example.petpalfinder.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/** One cached geocode: a normalized address and where it resolved to, or a remembered miss. */
+@Entity(tableName = "geocode_cache")
+public class GeocodeEntry {
+    @PrimaryKey
+    @NonNull
+    public String query = "";
+    public double lat;
+    public double lng;
+    // false = OpenCage had no result for this query (negative entry)
+    public boolean found;
+    public long writtenAt;
+    public long ttlMillis;
+
+    public GeocodeEntry() {}
+
+    public boolean isExpired(long now) {
+        return now - writtenAt > ttlMillis;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.petpalfinder.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/** Formatted address label for one geohash cell, from a reverse geocode of a point inside it. */
+@Entity(tableName = "reverse_geocode_cache")
+public class ReverseGeocodeEntry {
+    @PrimaryKey
+    @NonNull
+    public String cell = "";
+    public String formatted;
+    public long writtenAt;
+    public long ttlMillis;
+
+    public ReverseGeocodeEntry() {}
+}
@@ -24,4 +24,7 @@ public class Animal {
     public Attributes attributes;
     public Environment environment;
     public List<String> tags;
+
+    // Set on list projections from a search page, which skip the fields above (see SearchResponseConverterFactory)
+    public transient boolean projected;
 }
@@ -5,4 +5,7 @@ import java.util.List;
 public class AnimalsResponse {
     public List<Animal> animals;
     public Pagination pagination;
+
+    // Decoded body size of the page(s) behind this response, for paging metrics; 0 when unknown
+    public transient long payloadBytes;
 }
@@ -0,0 +1,150 @@
+package com.example.petpalfinder.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import okhttp3.Call;
+import okhttp3.CacheControl;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Stale-while-revalidate for the Petfinder detail endpoints ({@code /animals/{id}} and
+ * {@code /organizations/{id}}), on top of the client's disk {@link okhttp3.Cache}.
+ *
+ * A cached entry younger than {@code freshSeconds} is served as is. One older than that but
+ * within {@code ttlSeconds} is served immediately and refreshed in the background. Anything
+ * older, or not cached, goes to the network. Searches are not affected.
+ */
+public final class DetailCacheInterceptor implements Interceptor {
+    private static final String TAG = "DetailCache";
+    // Marks our own background refresh so it skips the cache lookup
+    private static final String REVALIDATE_HEADER = "X-PetPal-Revalidate";
+    private static final Pattern DETAIL_PATH = Pattern.compile(".*/(animals/\\d+|organizations/[^/]+)/?$");
+
+    private final int freshSeconds;
+    private final int ttlSeconds;
+    private volatile OkHttpClient client;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    DetailCacheInterceptor(int freshSeconds, int ttlSeconds) {
+        this.freshSeconds = freshSeconds;
+        this.ttlSeconds = Math.max(freshSeconds, ttlSeconds);
+    }
+
+    /** The client background refreshes are sent through; must be the one this interceptor is on. */
+    void attach(OkHttpClient client) {
+        this.client = client;
+    }
+
+    /** Network interceptor that marks detail responses cacheable for {@code freshSeconds}. */
+    Interceptor networkInterceptor() {
+        return chain -> {
+            Response res = chain.proceed(chain.request());
+            if (!res.isSuccessful() || !isDetail(chain.request())) return res;
+            return res.newBuilder()
+                    .removeHeader("Pragma")
+                    .header("Cache-Control", "private, max-age=" + freshSeconds)
+                    .build();
+        };
+    }
+
+    @NonNull @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request req = chain.request();
+        if (!"GET".equals(req.method()) || !isDetail(req)) return chain.proceed(req);
+
+        if (req.header(REVALIDATE_HEADER) != null) {
+            return chain.proceed(req.newBuilder().removeHeader(REVALIDATE_HEADER).build());
+        }
+
+        Response cached = chain.proceed(req.newBuilder()
+                .cacheControl(new CacheControl.Builder()
+                        .onlyIfCached()
+                        .maxStale(ttlSeconds - freshSeconds, TimeUnit.SECONDS)
+                        .build())
+                .build());
+        String path = req.url().encodedPath();
+        if (cached.code() != 504) { // 504 is OkHttp's "not in cache" for only-if-cached
+            if (isStale(cached)) {
+                staleHits.incrementAndGet();
+                Log.d(TAG, "Stale hit " + path + ", revalidating (" + stats() + ")");
+                revalidate(req);
+            } else {
+                hits.incrementAndGet();
+                Log.d(TAG, "Hit " + path + " (" + stats() + ")");
+            }
+            return cached;
+        }
+        cached.close();
+        misses.incrementAndGet();
+        Log.d(TAG, "Miss " + path + " (" + stats() + ")");
+        return chain.proceed(req);
+    }
+
+    public long hitCount() { return hits.get(); }
+
+    public long staleHitCount() { return staleHits.get(); }
+
+    public long missCount() { return misses.get(); }
+
+    /** Hits (fresh or stale) over all lookups, for tuning the TTL. */
+    public double hitRate() {
+        long h = hits.get() + staleHits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public String stats() {
+        return String.format(Locale.US, "detail cache: %d fresh hits, %d stale hits, %d misses (hit rate %.0f%%)",
+                hits.get(), staleHits.get(), misses.get(), hitRate() * 100);
+    }
+
+    private void revalidate(Request original) {
+        OkHttpClient c = client;
+        if (c == null) return;
+        Request refresh = original.newBuilder()
+                .cacheControl(CacheControl.FORCE_NETWORK)
+                .header(REVALIDATE_HEADER, "1")
+                .build();
+        c.newCall(refresh).enqueue(new Callback() {
+            @Override public void onResponse(@NonNull Call call, @NonNull Response response) {
+                // Reading through lets the cache interceptor store the fresh entry
+                try (Response r = response) {
+                    if (r.body() != null) r.body().string();
+                } catch (IOException e) {
+                    Log.w(TAG, "Revalidation read failed for " + original.url().encodedPath(), e);
+                }
+            }
+
+            @Override public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                Log.w(TAG, "Revalidation failed for " + original.url().encodedPath(), e);
+            }
+        });
+    }
+
+    private static boolean isStale(Response cached) {
+        // OkHttp tags responses served past max-age with a 110 warning
+        for (String w : cached.headers("Warning")) {
+            if (w.startsWith("110")) return true;
+        }
+        return false;
+    }
+
+    private static boolean isDetail(Request req) {
+        return DETAIL_PATH.matcher(req.url().encodedPath()).matches();
+    }
+}
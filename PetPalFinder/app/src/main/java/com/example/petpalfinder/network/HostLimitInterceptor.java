@@ -0,0 +1,40 @@
+package com.example.petpalfinder.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Caps concurrent requests per host, including blocking {@code execute()} calls that the OkHttp
+ * Dispatcher's per-host limit never sees. Add it after any interceptor that makes its own calls
+ * to the same host (e.g. the bearer interceptor fetching a token), or those calls can starve.
+ */
+final class HostLimitInterceptor implements Interceptor {
+    private final int permitsPerHost;
+    private final Map<String, Semaphore> hosts = new ConcurrentHashMap<>();
+
+    HostLimitInterceptor(int permitsPerHost) {
+        this.permitsPerHost = permitsPerHost;
+    }
+
+    @Override public Response intercept(Chain chain) throws IOException {
+        Semaphore permits = hosts.computeIfAbsent(chain.request().url().host(),
+                h -> new Semaphore(permitsPerHost, true));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection slot");
+        }
+        try {
+            return chain.proceed(chain.request());
+        } finally {
+            permits.release();
+        }
+    }
+}
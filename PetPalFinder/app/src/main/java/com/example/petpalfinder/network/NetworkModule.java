@@ -0,0 +1,176 @@
+package com.example.petpalfinder.network;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import com.example.petpalfinder.BuildConfig;
+import com.example.petpalfinder.network.auth.PetfinderTokenProvider;
+import com.example.petpalfinder.network.auth.TokenManager;
+import com.example.petpalfinder.network.petfinder.PetfinderApiService;
+import com.example.petpalfinder.network.petfinder.PetfinderAuthService;
+import com.example.petpalfinder.network.petfinder.SearchResponseConverterFactory;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * App-wide network stack. Every client here is derived from {@link #sharedClient()} via
+ * {@code newBuilder()}, so they all share one connection pool, one dispatcher and its thread pool.
+ */
+public final class NetworkModule {
+    public static final String PETFINDER_BASE = "https://api.petfinder.com/v2/";
+
+    private static final int MAX_REQUESTS = 32;
+    private static final int MAX_REQUESTS_PER_HOST = 6;
+
+    // Disk cache for Petfinder detail responses (see DetailCacheInterceptor)
+    private static final long HTTP_CACHE_BYTES = 10L * 1024 * 1024;
+    private static final int DETAIL_FRESH_SECONDS = 60;
+    private static final int DETAIL_TTL_SECONDS = 60 * 60;
+
+    private static final Object CLIENT_LOCK = new Object();
+    private static volatile OkHttpClient sharedClient;
+    private static volatile HostLimitInterceptor hostLimit;
+    private static volatile NetworkModule INSTANCE;
+
+    private final PetfinderTokenProvider tokenProvider;
+    private final PetfinderApiService petfinderApi;
+    private final DetailCacheInterceptor detailCache;
+
+    private NetworkModule(Context appContext) {
+        OkHttpClient base = sharedClient();
+
+        // Token calls go over the plain shared client: no bearer, no per-host limit
+        PetfinderAuthService authService = new Retrofit.Builder()
+                .baseUrl(PETFINDER_BASE)
+                .addConverterFactory(GsonConverterFactory.create())
+                .client(base)
+                .build()
+                .create(PetfinderAuthService.class);
+        tokenProvider = new PetfinderTokenProvider(
+                BuildConfig.PETFINDER_CLIENT_ID,
+                BuildConfig.PETFINDER_CLIENT_SECRET,
+                authService,
+                new TokenManager(appContext)
+        );
+        // Have a token ready (from disk or the network) before the first search needs it
+        tokenProvider.prefetch();
+
+        detailCache = new DetailCacheInterceptor(DETAIL_FRESH_SECONDS, DETAIL_TTL_SECONDS);
+
+        OkHttpClient http = base.newBuilder()
+                .cache(new Cache(new File(appContext.getCacheDir(), "http_petfinder"), HTTP_CACHE_BYTES))
+                // Attach bearer to every request
+                .addInterceptor(chain -> {
+                    String token = tokenProvider.getValidToken();
+                    Request req = chain.request().newBuilder()
+                            .header("Authorization", "Bearer " + token)
+                            .build();
+                    return chain.proceed(req);
+                })
+                .addInterceptor(hostLimit())
+                .addInterceptor(detailCache)
+                .addNetworkInterceptor(detailCache.networkInterceptor())
+                // If server says 401, refresh token once and retry
+                .authenticator((route, response) -> {
+                    // Avoid infinite loops
+                    if (response.request().header("Authorization") != null && responseCount(response) > 1) {
+                        return null;
+                    }
+                    tokenProvider.invalidate(bearerOf(response.request()));
+                    String fresh = tokenProvider.getValidToken();
+                    return response.request().newBuilder()
+                            .header("Authorization", "Bearer " + fresh)
+                            .build();
+                })
+                .build();
+        detailCache.attach(http);
+
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(PETFINDER_BASE)
+                // Search pages are streamed into list projections; everything else goes through Gson
+                .addConverterFactory(SearchResponseConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create())
+                .client(http)
+                .build();
+
+        petfinderApi = retrofit.create(PetfinderApiService.class);
+    }
+
+    public static NetworkModule get(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (NetworkModule.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new NetworkModule(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /** Authenticated Petfinder API, created once per process. */
+    public PetfinderApiService petfinder() {
+        return petfinderApi;
+    }
+
+    /** Hit/miss counters of the animal and organization detail cache. */
+    public DetailCacheInterceptor detailCache() {
+        return detailCache;
+    }
+
+    /**
+     * Root client: owns the connection pool and dispatcher. Derive from it with {@code newBuilder()}
+     * rather than building a new OkHttpClient. It has no per-host limit, so it is safe for calls
+     * made from inside another request's interceptors (e.g. token fetches).
+     */
+    public static OkHttpClient sharedClient() {
+        if (sharedClient == null) {
+            synchronized (CLIENT_LOCK) {
+                if (sharedClient == null) {
+                    Dispatcher dispatcher = new Dispatcher();
+                    dispatcher.setMaxRequests(MAX_REQUESTS);
+                    dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+                    sharedClient = new OkHttpClient.Builder()
+                            .dispatcher(dispatcher)
+                            .connectionPool(new ConnectionPool(10, 5, TimeUnit.MINUTES))
+                            .connectTimeout(30, TimeUnit.SECONDS)
+                            .readTimeout(30, TimeUnit.SECONDS)
+                            .build();
+                }
+            }
+        }
+        return sharedClient;
+    }
+
+    /** Per-host cap shared by every API client, so blocking calls are limited like enqueued ones. */
+    static HostLimitInterceptor hostLimit() {
+        if (hostLimit == null) {
+            synchronized (CLIENT_LOCK) {
+                if (hostLimit == null) hostLimit = new HostLimitInterceptor(MAX_REQUESTS_PER_HOST);
+            }
+        }
+        return hostLimit;
+    }
+
+    @Nullable
+    private static String bearerOf(Request req) {
+        String header = req.header("Authorization");
+        return (header != null && header.startsWith("Bearer ")) ? header.substring(7) : null;
+    }
+
+    private static int responseCount(Response response) {
+        int count = 1;
+        while ((response = response.priorResponse()) != null) count++;
+        return count;
+    }
+}
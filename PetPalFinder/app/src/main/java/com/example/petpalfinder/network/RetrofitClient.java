@@ -1,22 +1,33 @@
 package com.example.petpalfinder.network;
 
+import android.util.Log;
+
+import com.example.petpalfinder.BuildConfig;
+
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 public final class RetrofitClient {
+    private static final String TAG = "OpenCageHttp";
     private static final String BASE_URL = "https://api.opencagedata.com/";
     private static Retrofit retrofit;
+    private static OpenCageApi openCage;
 
     private RetrofitClient() {}
 
-    public static Retrofit get() {
+    public static synchronized Retrofit get() {
         if (retrofit == null) {
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
+            // Mask the API key, these URLs carry it as a query parameter
+            String key = BuildConfig.OPEN_CAGE_API_KEY;
+            HttpLoggingInterceptor logging = new HttpLoggingInterceptor(message ->
+                    Log.d(TAG, (key == null || key.isEmpty()) ? message : message.replace(key, "****")));
             logging.setLevel(HttpLoggingInterceptor.Level.BASIC);
 
-            OkHttpClient client = new OkHttpClient.Builder()
+            // Derived from the shared client so OpenCage reuses the app's pool and dispatcher
+            OkHttpClient client = NetworkModule.sharedClient().newBuilder()
+                    .addInterceptor(NetworkModule.hostLimit())
                     .addInterceptor(logging)
                     .build();
 
@@ -28,4 +39,12 @@ public final class RetrofitClient {
         }
         return retrofit;
     }
+
+    /** Shared OpenCage service, created once per process. */
+    public static synchronized OpenCageApi openCage() {
+        if (openCage == null) {
+            openCage = get().create(OpenCageApi.class);
+        }
+        return openCage;
+    }
 }
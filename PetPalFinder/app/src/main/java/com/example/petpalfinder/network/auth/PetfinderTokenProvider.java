@@ -0,0 +1,205 @@
+package com.example.petpalfinder.network.auth;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.petpalfinder.model.petfinder.TokenResponse;
+import com.example.petpalfinder.network.petfinder.PetfinderAuthService;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Client-credentials token for the Petfinder API.
+ *
+ * Reading a valid token is lock-free. When a new one is needed exactly one fetch is in flight, on
+ * a dedicated thread, and every caller waits on it, so an interrupted caller fails alone. Tokens
+ * are renewed in the background shortly before they expire and persisted through
+ * {@link TokenManager}, so a cold start can reuse the last one.
+ */
+public final class PetfinderTokenProvider {
+    private static final String TAG = "PetfinderToken";
+    // Stop handing a token out this long before the server expires it
+    private static final long EXPIRY_SKEW_MS = 60_000L;
+    // Start a background renewal this long before expiry (at most half the token's lifetime)
+    private static final long RENEW_AHEAD_MS = 5 * 60_000L;
+
+    private static final class Token {
+        final String value;
+        final long expiresAt;
+        final long renewAt;
+
+        Token(String value, long expiresAt, long now) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.renewAt = expiresAt - Math.min(RENEW_AHEAD_MS, Math.max(0, expiresAt - now) / 2);
+        }
+
+        boolean usableAt(long now) { return now < expiresAt - EXPIRY_SKEW_MS; }
+
+        boolean renewDueAt(long now) { return now >= renewAt; }
+    }
+
+    private final String clientId;
+    private final String clientSecret;
+    private final PetfinderAuthService auth;
+    private final TokenManager store;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pf-token");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService fetcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pf-token-fetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicReference<Token> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Token>> inFlight = new AtomicReference<>();
+    private volatile boolean restored = false;
+    private ScheduledFuture<?> renewal; // guarded by this
+
+    public PetfinderTokenProvider(String clientId, String clientSecret,
+                                  PetfinderAuthService auth, TokenManager store) {
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.auth = auth;
+        this.store = store;
+    }
+
+    /** Restores the persisted token, or fetches one, off the calling thread. */
+    public void prefetch() {
+        scheduler.execute(() -> {
+            try {
+                getValidToken();
+            } catch (IOException e) {
+                Log.w(TAG, "Token prefetch failed", e);
+            }
+        });
+    }
+
+    public String getValidToken() throws IOException {
+        if (!restored) restore();
+        Token t = current.get();
+        long now = System.currentTimeMillis();
+        if (t != null && t.usableAt(now)) {
+            if (t.renewDueAt(now)) renewInBackground();
+            return t.value;
+        }
+        return await(refresh(false)).value;
+    }
+
+    /**
+     * Drops {@code rejected}, a token the server answered 401 to, so the next read fetches a new one.
+     * A stale rejection (the token was already replaced) is ignored, so a burst of 401s costs one fetch.
+     */
+    public void invalidate(@Nullable String rejected) {
+        Token t = current.get();
+        if (t != null && (rejected == null || t.value.equals(rejected))) {
+            if (current.compareAndSet(t, null)) store.clear();
+        }
+    }
+
+    private void renewInBackground() {
+        if (inFlight.get() != null) return;
+        refresh(true).whenComplete((t, e) -> {
+            // The current token is still usable; the next read past renewAt tries again
+            if (e != null) Log.w(TAG, "Background token renewal failed", e);
+        });
+    }
+
+    /** Joins the in-flight fetch, or starts one on the fetcher thread. */
+    private CompletableFuture<Token> refresh(boolean renewal) {
+        while (true) {
+            CompletableFuture<Token> running = inFlight.get();
+            if (running != null) return running;
+
+            CompletableFuture<Token> mine = new CompletableFuture<>();
+            if (!inFlight.compareAndSet(null, mine)) continue;
+            fetcher.execute(() -> {
+                try {
+                    // Another flight may have finished between our read and the CAS
+                    Token t = current.get();
+                    long now = System.currentTimeMillis();
+                    if (t != null && t.usableAt(now) && !(renewal && t.renewDueAt(now))) {
+                        mine.complete(t);
+                    } else {
+                        Token fresh = fetchToken();
+                        current.set(fresh);
+                        scheduleRenewal(fresh);
+                        mine.complete(fresh);
+                    }
+                } catch (Throwable e) {
+                    mine.completeExceptionally(e);
+                } finally {
+                    inFlight.compareAndSet(mine, null);
+                }
+            });
+            return mine;
+        }
+    }
+
+    private Token fetchToken() throws IOException {
+        retrofit2.Response<TokenResponse> r = auth.getToken("client_credentials", clientId, clientSecret).execute();
+        if (!r.isSuccessful() || r.body() == null) {
+            String body = "<empty>";
+            try {
+                if (r.errorBody() != null) body = r.errorBody().string();
+            } catch (Exception ignore) {}
+            Log.e(TAG, "Token fetch failed " + r.code() + ": " + body);
+            throw new IOException("Token fetch failed: " + r.code());
+        }
+        TokenResponse t = r.body();
+        if (t.access_token == null || t.access_token.isEmpty()) {
+            throw new IOException("Token missing in response");
+        }
+        store.save(t);
+        Log.d(TAG, "Fetched Petfinder token, expires in ~" + t.expires_in + "s");
+        long now = System.currentTimeMillis();
+        return new Token(t.access_token, now + t.expires_in * 1000L, now);
+    }
+
+    // Concurrent first callers wait here rather than race past a restore still in progress
+    private synchronized void restore() {
+        if (restored) return;
+        String value = store.getCachedValidToken();
+        if (value != null) {
+            long now = System.currentTimeMillis();
+            Token t = new Token(value, store.getCachedExpiryMillis(), now);
+            if (t.usableAt(now) && current.compareAndSet(null, t)) {
+                Log.d(TAG, "Restored persisted Petfinder token");
+                scheduleRenewal(t);
+            }
+        }
+        restored = true;
+    }
+
+    private synchronized void scheduleRenewal(Token t) {
+        if (renewal != null) renewal.cancel(false);
+        long delay = Math.max(0, t.renewAt - System.currentTimeMillis());
+        renewal = scheduler.schedule(this::renewInBackground, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static Token await(CompletableFuture<Token> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a Petfinder token");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+}
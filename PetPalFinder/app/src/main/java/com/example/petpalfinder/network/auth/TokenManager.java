@@ -26,6 +26,11 @@ public class TokenManager {
         return null;
     }
 
+    /** Wall-clock expiry of the stored token, 0 when nothing is stored. */
+    public synchronized long getCachedExpiryMillis() {
+        return prefs.getLong(KEY_EXP_MS, 0);
+    }
+
     public synchronized void save(TokenResponse t) {
         long expAt = System.currentTimeMillis() + (t.expires_in * 1000L);
         prefs.edit().putString(KEY_ACCESS, t.access_token).putLong(KEY_EXP_MS, expAt).apply();
@@ -0,0 +1,258 @@
+package com.example.petpalfinder.network.petfinder;
+
+import androidx.annotation.Nullable;
+
+import com.example.petpalfinder.data.AnimalVocabulary;
+import com.example.petpalfinder.model.petfinder.Address;
+import com.example.petpalfinder.model.petfinder.Animal;
+import com.example.petpalfinder.model.petfinder.AnimalsResponse;
+import com.example.petpalfinder.model.petfinder.Contact;
+import com.example.petpalfinder.model.petfinder.Pagination;
+import com.example.petpalfinder.model.petfinder.Photo;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Streams {@code /animals} search pages into list projections instead of full {@link Animal}s.
+ *
+ * Only what the list, the map and favorites read is kept: ids, name, type/species, age, gender,
+ * size, status, distance, url, the first photo and the contact block. Description, tags, breeds,
+ * colors, attributes, environment and the other photos are skipped without being materialized.
+ * Projected animals have {@link Animal#projected} set; the detail screen hydrates them through
+ * {@code /animals/{id}}. Type, species, age, gender, size and status are mapped to the shared
+ * instances of {@link AnimalVocabulary}. Every other response type falls through to the next
+ * converter (Gson).
+ */
+public final class SearchResponseConverterFactory extends Converter.Factory {
+
+    public static SearchResponseConverterFactory create() {
+        return new SearchResponseConverterFactory();
+    }
+
+    private SearchResponseConverterFactory() {}
+
+    @Nullable @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (type != AnimalsResponse.class) return null;
+        return (Converter<ResponseBody, AnimalsResponse>) body -> {
+            CountingInputStream counted = new CountingInputStream(body.byteStream());
+            try (JsonReader in = new JsonReader(new InputStreamReader(counted, StandardCharsets.UTF_8))) {
+                AnimalsResponse r = readResponse(in);
+                r.payloadBytes = counted.count;
+                return r;
+            }
+        };
+    }
+
+    static AnimalsResponse readResponse(JsonReader in) throws IOException {
+        AnimalsResponse r = new AnimalsResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "animals":
+                    r.animals = readAnimals(in);
+                    break;
+                case "pagination":
+                    r.pagination = readPagination(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return r;
+    }
+
+    private static List<Animal> readAnimals(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return Collections.emptyList();
+        }
+        List<Animal> out = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) out.add(readAnimal(in));
+        in.endArray();
+        return out;
+    }
+
+    private static Animal readAnimal(JsonReader in) throws IOException {
+        Animal a = new Animal();
+        a.projected = true;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":              a.id = in.nextLong(); break;
+                case "organization_id": a.organization_id = str(in); break;
+                case "url":             a.url = str(in); break;
+                case "type":            a.type = AnimalVocabulary.TYPES.intern(str(in)); break;
+                case "species":         a.species = AnimalVocabulary.SPECIES.intern(str(in)); break;
+                case "age":             a.age = AnimalVocabulary.AGES.intern(str(in)); break;
+                case "gender":          a.gender = AnimalVocabulary.GENDERS.intern(str(in)); break;
+                case "size":            a.size = AnimalVocabulary.SIZES.intern(str(in)); break;
+                case "status":          a.status = AnimalVocabulary.STATUSES.intern(str(in)); break;
+                case "name":            a.name = str(in); break;
+                case "distance":        a.distance = dbl(in); break;
+                case "photos":          a.photos = readFirstPhoto(in); break;
+                case "contact":         a.contact = readContact(in); break;
+                default:                in.skipValue();
+            }
+        }
+        in.endObject();
+        return a;
+    }
+
+    /** Keeps only the first photo, the only one a list row or map pin shows. */
+    @Nullable
+    private static List<Photo> readFirstPhoto(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Photo first = null;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (first != null) {
+                in.skipValue();
+                continue;
+            }
+            first = new Photo();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "small":  first.small = str(in); break;
+                    case "medium": first.medium = str(in); break;
+                    case "large":  first.large = str(in); break;
+                    case "full":   first.full = str(in); break;
+                    default:       in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+        return (first != null) ? Collections.singletonList(first) : Collections.emptyList();
+    }
+
+    @Nullable
+    private static Contact readContact(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Contact c = new Contact();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "email":   c.email = str(in); break;
+                case "phone":   c.phone = str(in); break;
+                case "address": c.address = readAddress(in); break;
+                default:        in.skipValue();
+            }
+        }
+        in.endObject();
+        return c;
+    }
+
+    @Nullable
+    private static Address readAddress(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Address ad = new Address();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "address1":  ad.address1 = str(in); break;
+                case "address2":  ad.address2 = str(in); break;
+                case "city":      ad.city = str(in); break;
+                case "state":     ad.state = str(in); break;
+                case "postcode":  ad.postcode = str(in); break;
+                case "country":   ad.country = str(in); break;
+                case "latitude":  ad.latitude = dbl(in); break;
+                case "longitude": ad.longitude = dbl(in); break;
+                default:          in.skipValue();
+            }
+        }
+        in.endObject();
+        return ad;
+    }
+
+    @Nullable
+    private static Pagination readPagination(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Pagination p = new Pagination();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "count_per_page": p.count_per_page = in.nextInt(); break;
+                case "total_count":    p.total_count = in.nextInt(); break;
+                case "current_page":   p.current_page = in.nextInt(); break;
+                case "total_pages":    p.total_pages = in.nextInt(); break;
+                default:               in.skipValue();
+            }
+        }
+        in.endObject();
+        return p;
+    }
+
+    @Nullable
+    private static String str(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    @Nullable
+    private static Double dbl(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextDouble();
+    }
+
+    /** Counts the bytes the parser pulls, i.e. the decoded page size. */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) { super(in); }
+
+        @Override public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
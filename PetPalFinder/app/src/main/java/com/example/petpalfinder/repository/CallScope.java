@@ -0,0 +1,48 @@
+package com.example.petpalfinder.repository;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import retrofit2.Call;
+
+/**
+ * Group of Retrofit calls made on behalf of one request, so they can be cancelled together.
+ * A call tracked after {@link #cancel()} is cancelled straight away, and so is a hook added after it.
+ */
+public final class CallScope {
+    private final Set<Call<?>> calls = ConcurrentHashMap.newKeySet();
+    private final Set<Runnable> hooks = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled = false;
+
+    public <T> Call<T> track(Call<T> call) {
+        calls.add(call);
+        if (cancelled) call.cancel();
+        return call;
+    }
+
+    public void untrack(Call<?> call) {
+        calls.remove(call);
+    }
+
+    /** Runs {@code hook} once when the scope is cancelled, for work that is waiting rather than calling. */
+    public void onCancel(Runnable hook) {
+        hooks.add(hook);
+        if (cancelled && hooks.remove(hook)) hook.run();
+    }
+
+    public void removeOnCancel(Runnable hook) {
+        hooks.remove(hook);
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Call<?> c : calls) c.cancel();
+        for (Runnable h : hooks) {
+            if (hooks.remove(h)) h.run();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -17,18 +17,22 @@ public class GeocodingRepository {
     private final String apiKey = BuildConfig.OPEN_CAGE_API_KEY;
 
     public GeocodingRepository() {
-        api = RetrofitClient.get().create(OpenCageApi.class);
+        api = RetrofitClient.openCage();
     }
 
-    /** Raw forward geocoding (full Retrofit callback) */
-    public void forward(String address, Callback<OpenCageResponse> callback) {
-        api.forwardGeocode(address, apiKey, 1, 1).enqueue(callback);
+    /** Raw forward geocoding (full Retrofit callback). The returned call can be cancelled. */
+    public Call<OpenCageResponse> forward(String address, Callback<OpenCageResponse> callback) {
+        Call<OpenCageResponse> call = api.forwardGeocode(address, apiKey, 1, 1);
+        call.enqueue(callback);
+        return call;
     }
 
-    /** Raw reverse geocoding (full Retrofit callback) */
-    public void reverse(double lat, double lng, Callback<OpenCageResponse> callback) {
+    /** Raw reverse geocoding (full Retrofit callback). The returned call can be cancelled. */
+    public Call<OpenCageResponse> reverse(double lat, double lng, Callback<OpenCageResponse> callback) {
         String q = lat + "," + lng;
-        api.reverseGeocode(q, apiKey, 1, 1).enqueue(callback);
+        Call<OpenCageResponse> call = api.reverseGeocode(q, apiKey, 1, 1);
+        call.enqueue(callback);
+        return call;
     }
 
     public interface SimpleHandler {
@@ -37,8 +41,8 @@ public class GeocodingRepository {
     }
 
     /** Convenience wrapper for forward geocoding that uses SimpleHandler */
-    public void forwardSimple(String address, SimpleHandler handler) {
-        forward(address, new Callback<OpenCageResponse>() {
+    public Call<OpenCageResponse> forwardSimple(String address, SimpleHandler handler) {
+        return forward(address, new Callback<OpenCageResponse>() {
             @Override
             public void onResponse(@NonNull Call<OpenCageResponse> call,
                                    @NonNull Response<OpenCageResponse> response) {
@@ -53,14 +57,15 @@ public class GeocodingRepository {
 
             @Override
             public void onFailure(@NonNull Call<OpenCageResponse> call, @NonNull Throwable t) {
+                if (call.isCanceled()) return; // the caller no longer wants an answer
                 handler.onError(t.getMessage() != null ? t.getMessage() : "Request failed");
             }
         });
     }
 
     /** convenience wrapper for reverse geocoding with SimpleHandler */
-    public void reverseSimple(double lat, double lng, SimpleHandler handler) {
-        reverse(lat, lng, new Callback<OpenCageResponse>() {
+    public Call<OpenCageResponse> reverseSimple(double lat, double lng, SimpleHandler handler) {
+        return reverse(lat, lng, new Callback<OpenCageResponse>() {
             @Override
             public void onResponse(@NonNull Call<OpenCageResponse> call,
                                    @NonNull Response<OpenCageResponse> response) {
@@ -75,6 +80,7 @@ public class GeocodingRepository {
 
             @Override
             public void onFailure(@NonNull Call<OpenCageResponse> call, @NonNull Throwable t) {
+                if (call.isCanceled()) return; // the caller no longer wants an answer
                 handler.onError(t.getMessage() != null ? t.getMessage() : "Request failed");
             }
         });
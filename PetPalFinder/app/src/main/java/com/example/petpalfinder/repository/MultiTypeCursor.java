@@ -0,0 +1,280 @@
+package com.example.petpalfinder.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.petpalfinder.data.PagingPolicy;
+import com.example.petpalfinder.model.petfinder.Animal;
+import com.example.petpalfinder.model.petfinder.AnimalsResponse;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Merged, paginated view over one Petfinder search per animal type.
+ *
+ * Every type keeps its own offset and a buffer of animals it has fetched but not handed out yet.
+ * A page is assembled by repeatedly taking the closest head across all buffers; when a type's buffer
+ * runs dry only that type's next page is requested, sized by the {@link PagingPolicy} for that
+ * type's own offset. A type whose page fails to load is retried once, then skipped for the rest of
+ * the page while the other types are still served; it stays live and is tried again on the next
+ * page, so its rows may arrive later than their distance would put them. A type is dropped after
+ * {@link #MAX_FAILURES} failed pages in a row, or at once if the fetcher reports it unavailable.
+ * Not thread-safe, callers serialize access.
+ */
+final class MultiTypeCursor {
+    private static final String TAG = "MultiTypeCursor";
+    private static final int FETCH_ATTEMPTS = 2;
+    // Consecutive failed fills after which a type is given up for the rest of the search
+    static final int MAX_FAILURES = 3;
+
+    /** Fetches one page of one type from the API; null if the type cannot be searched at all. */
+    interface PageFetcher {
+        @Nullable
+        AnimalsResponse fetch(String type, int page, int limit) throws IOException;
+    }
+
+    private static final class TypeState {
+        final String type;
+        final ArrayDeque<Animal> buffer = new ArrayDeque<>();
+        int fetched = 0;
+        int totalCount = 0;
+        int failures = 0;
+        boolean done = false;
+
+        TypeState(String type) { this.type = type; }
+
+        boolean needsFill() { return buffer.isEmpty() && !done; }
+    }
+
+    private final String key;
+    private final List<TypeState> types = new ArrayList<>();
+    private final boolean byDistance;
+    private final PagingPolicy policy;
+    private final ExecutorService pool;
+
+    // Merged rows already handed out, i.e. the offset of the next page
+    private int served = 0;
+    // Rows each type had handed out when the page at a merged offset was taken, for replayAt()
+    private final Map<Integer, int[]> checkpoints = new HashMap<>();
+    // Decoded payload bytes fetched since the last drainBytes()
+    private long bytes = 0;
+
+    MultiTypeCursor(String key, List<String> typeNames, boolean byDistance, PagingPolicy policy,
+                    ExecutorService pool) {
+        this.key = key;
+        this.byDistance = byDistance;
+        this.policy = policy;
+        this.pool = pool;
+        for (String t : typeNames) types.add(new TypeState(t));
+    }
+
+    String key() { return key; }
+
+    int served() { return served; }
+
+    /** Sum of every type's reported total, i.e. the size of the merged result set. */
+    int totalCount() {
+        int sum = 0;
+        for (TypeState s : types) sum += s.totalCount;
+        return sum;
+    }
+
+    /** True once every buffer is empty and no type has pages left to fetch. */
+    boolean isExhausted() {
+        for (TypeState s : types) {
+            if (!s.buffer.isEmpty() || !s.done) return false;
+        }
+        return true;
+    }
+
+    long drainBytes() {
+        long b = bytes;
+        bytes = 0;
+        return b;
+    }
+
+    /**
+     * Assembles the next merged page of up to {@code size} animals. The fetcher is passed per call so
+     * each page's requests belong to the caller that asked for it (and can be cancelled with it).
+     */
+    List<Animal> take(int size, PageFetcher fetcher) throws InterruptedException, IOException {
+        if (!checkpoints.containsKey(served)) checkpoints.put(served, consumed());
+        List<Animal> out = new ArrayList<>(size);
+        IOException failure = null;
+        try {
+            fillEmptyBuffers(fetcher);
+        } catch (IOException e) {
+            failure = e; // the types that loaded are still served
+        }
+        while (out.size() < size) {
+            TypeState head = pickHead();
+            if (head == null) break;
+            out.add(head.buffer.poll());
+            if (head.needsFill()) {
+                try {
+                    fill(head, fetcher, FETCH_ATTEMPTS);
+                } catch (IOException e) {
+                    failure = e; // its buffer stays empty, so the merge goes on without it
+                }
+            }
+        }
+        // Only a page that no type could contribute to is an error; an empty page would read as the end
+        if (out.isEmpty() && failure != null) throw failure;
+        if (failure != null) Log.w(TAG, "Served " + out.size() + " rows without a failing type", failure);
+        served += out.size();
+        return out;
+    }
+
+    /** Skips ahead so the next {@link #take} starts at merged row {@code offset}. */
+    void advanceTo(int offset, PageFetcher fetcher) throws InterruptedException, IOException {
+        while (served < offset && !isExhausted()) {
+            take(Math.min(PagingPolicy.MAX_LIMIT, offset - served), fetcher);
+        }
+    }
+
+    /**
+     * A new cursor positioned where this one was when it took the page at merged row {@code offset},
+     * so that page can be merged again with one request per type instead of a replay from row 0.
+     * Null if no page started at {@code offset}.
+     */
+    @Nullable
+    MultiTypeCursor replayAt(int offset) {
+        int[] at = checkpoints.get(offset);
+        if (at == null) return null;
+        List<String> names = new ArrayList<>(types.size());
+        for (TypeState s : types) names.add(s.type);
+        MultiTypeCursor replay = new MultiTypeCursor(key, names, byDistance, policy, pool);
+        for (int i = 0; i < types.size(); i++) {
+            TypeState from = types.get(i);
+            TypeState to = replay.types.get(i);
+            to.fetched = at[i]; // fetched from there on, realigned by the paging policy
+            to.totalCount = from.totalCount;
+            // A type that was finished and fully handed out by then has nothing for the page either
+            to.done = from.done && at[i] >= from.fetched;
+        }
+        replay.served = offset;
+        return replay;
+    }
+
+    private int[] consumed() {
+        int[] at = new int[types.size()];
+        for (int i = 0; i < at.length; i++) {
+            TypeState s = types.get(i);
+            at[i] = s.fetched - s.buffer.size();
+        }
+        return at;
+    }
+
+    @Nullable
+    private TypeState pickHead() {
+        TypeState best = null;
+        for (TypeState s : types) {
+            if (s.buffer.isEmpty()) continue;
+            if (!byDistance) return s; // keep type order, like a plain concatenation
+            if (best == null || distanceOf(s.buffer.peek()) < distanceOf(best.buffer.peek())) {
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Refills every exhausted buffer at once; on the first page this is the parallel fan-out. Types
+     * that failed are retried one by one, and the last failure is thrown once the rest are in.
+     */
+    private void fillEmptyBuffers(PageFetcher fetcher) throws InterruptedException, IOException {
+        List<TypeState> empty = new ArrayList<>();
+        for (TypeState s : types) if (s.needsFill()) empty.add(s);
+        if (empty.isEmpty()) return;
+        if (empty.size() == 1) {
+            fill(empty.get(0), fetcher, FETCH_ATTEMPTS);
+            return;
+        }
+
+        List<Future<AnimalsResponse>> pending = new ArrayList<>(empty.size());
+        List<Integer> limits = new ArrayList<>(empty.size());
+        for (TypeState s : empty) {
+            final int limit = policy.limitFor(s.fetched);
+            final int page = PagingPolicy.pageFor(s.fetched, limit);
+            limits.add(limit);
+            pending.add(pool.submit(() -> fetcher.fetch(s.type, page, limit)));
+        }
+        IOException failure = null;
+        for (int i = 0; i < pending.size(); i++) {
+            TypeState s = empty.get(i);
+            try {
+                accept(s, pending.get(i).get(), limits.get(i));
+            } catch (ExecutionException e) {
+                Log.w(TAG, "Error fetching animals for type '" + s.type + "', retrying", e.getCause());
+                try {
+                    fill(s, fetcher, FETCH_ATTEMPTS - 1);
+                } catch (IOException retry) {
+                    failure = retry;
+                }
+            } catch (InterruptedException e) {
+                for (Future<AnimalsResponse> f : pending) f.cancel(true);
+                throw e;
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Fetches the type's next page, trying up to {@code attempts} times. A failure leaves the type live
+     * unless it is its {@link #MAX_FAILURES}th in a row.
+     */
+    private void fill(TypeState s, PageFetcher fetcher, int attempts) throws IOException {
+        int limit = policy.limitFor(s.fetched);
+        int page = PagingPolicy.pageFor(s.fetched, limit);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                accept(s, fetcher.fetch(s.type, page, limit), limit);
+                s.failures = 0;
+                return;
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Error fetching animals for type '" + s.type + "' (attempt " + attempt + ")", e);
+                if (attempt >= attempts) {
+                    if (++s.failures >= MAX_FAILURES) {
+                        Log.w(TAG, "Giving up on type '" + s.type + "' after " + s.failures + " failed pages");
+                        s.done = true;
+                    }
+                    throw (e instanceof IOException) ? (IOException) e : new IOException(e);
+                }
+            }
+        }
+    }
+
+    private void accept(TypeState s, @Nullable AnimalsResponse r, int limit) {
+        if (r == null || r.animals == null) {
+            // The fetcher already logged why the type cannot be searched; treat it as finished
+            s.done = true;
+            return;
+        }
+        bytes += r.payloadBytes;
+        // A realigning page overlaps rows this type already handed out
+        int skip = Math.min(PagingPolicy.skipFor(s.fetched, limit), r.animals.size());
+        List<Animal> fresh = r.animals.subList(skip, r.animals.size());
+        s.buffer.addAll(fresh);
+        s.fetched += fresh.size();
+        if (r.pagination != null) {
+            s.totalCount = Math.max(s.totalCount, r.pagination.total_count);
+            s.done = fresh.isEmpty() || s.fetched >= s.totalCount;
+        } else {
+            s.totalCount = Math.max(s.totalCount, s.fetched);
+            s.done = r.animals.size() < limit;
+        }
+    }
+
+    private static double distanceOf(Animal a) {
+        return (a != null && a.distance != null) ? a.distance : Double.MAX_VALUE;
+    }
+}
@@ -6,91 +6,61 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.example.petpalfinder.BuildConfig;
+import com.example.petpalfinder.data.AnimalVocabulary;
 import com.example.petpalfinder.data.FilterParams;
+import com.example.petpalfinder.data.PagingPolicy;
 import com.example.petpalfinder.model.petfinder.Animal;
 import com.example.petpalfinder.model.petfinder.AnimalsResponse;
 import com.example.petpalfinder.model.petfinder.Organization;
 import com.example.petpalfinder.model.petfinder.OrganizationResponse;
 import com.example.petpalfinder.model.petfinder.SingleAnimalResponse;
+import com.example.petpalfinder.network.NetworkModule;
 import com.example.petpalfinder.network.petfinder.PetfinderApiService;
 
-import org.json.JSONObject;
-
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
-import okhttp3.Authenticator;
-import okhttp3.FormBody;
-import okhttp3.Interceptor;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Protocol;
-import okhttp3.Request;
-import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
-import okhttp3.Route;
-import okhttp3.Response;
-import okio.Buffer;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.Call;
 
 public class PetfinderRepository {
     private static final String TAG = "PetfinderRepo";
 
+    // Upper bound on concurrent per-type calls for a multi-type search
+    private static final int MAX_PARALLEL_TYPES = 4;
+
     private final PetfinderApiService api;
-    private final TokenProvider tokenProvider;
-
-    public PetfinderRepository(Context ctx) {
-        this.tokenProvider = new TokenProvider(
-                BuildConfig.PETFINDER_CLIENT_ID,
-                BuildConfig.PETFINDER_CLIENT_SECRET
-        );
-
-        OkHttpClient http = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                // Attach bearer to every request
-                .addInterceptor(new Interceptor() {
-                    @Override public Response intercept(Chain chain) throws IOException {
-                        String token = tokenProvider.getValidToken();
-                        Request req = chain.request().newBuilder()
-                                .addHeader("Authorization", "Bearer " + token)
-                                .build();
-                        return chain.proceed(req);
-                    }
-                })
-                // If server says 401, refresh token once and retry
-                .authenticator(new Authenticator() {
-                    @Override public Request authenticate(@Nullable Route route, Response response) throws IOException {
-                        // Avoid infinite loops
-                        if (response.request().header("Authorization") != null && responseCount(response) > 1) {
-                            return null;
-                        }
-                        tokenProvider.forceRefresh();
-                        String fresh = tokenProvider.getValidToken();
-                        return response.request().newBuilder()
-                                .header("Authorization", "Bearer " + fresh)
-                                .build();
-                    }
-                })
-                .build();
-
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl("https://api.petfinder.com/v2/")
-                .addConverterFactory(GsonConverterFactory.create())
-                .client(http)
-                .build();
-
-        api = retrofit.create(PetfinderApiService.class);
+    private final ExecutorService typeFetchPool = newTypeFetchPool();
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    // Merged cursor of the current multi-type search, so later pages continue where the last one stopped
+    private final Object cursorLock = new Object();
+    private MultiTypeCursor cursor;
+
+    private static volatile PetfinderRepository INSTANCE;
+
+    private PetfinderRepository(Context ctx) {
+        api = NetworkModule.get(ctx).petfinder();
+    }
+
+    public static PetfinderRepository get(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (PetfinderRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new PetfinderRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
     }
 
     // ----- Public API -----
@@ -101,6 +71,60 @@ public class PetfinderRepository {
             int limit,
             @NonNull FilterParams filters
     ) throws Exception {
+        return searchAnimals(locationOrLatLng, page, limit, filters, null);
+    }
+
+    /** Same as above; every call made for this page is tracked in {@code scope} so the caller can cancel it. */
+    public AnimalsResponse searchAnimals(
+            @Nullable String locationOrLatLng,
+            int page,
+            int limit,
+            @NonNull FilterParams filters,
+            @Nullable CallScope scope
+    ) throws Exception {
+        int size = Math.max(1, Math.min(PagingPolicy.MAX_LIMIT, limit));
+        return searchAnimalsFrom(locationOrLatLng, (Math.max(1, page) - 1) * size, PagingPolicy.fixed(size),
+                filters, scope);
+    }
+
+    /**
+     * The page of results starting at row {@code offset}, sized by {@code policy}. Callers that vary
+     * the page size (see {@link PagingPolicy#adaptive}) page by row offset so no row is skipped or
+     * repeated when the size changes; the returned {@code pagination.total_count} tells them when to stop.
+     */
+    public AnimalsResponse searchAnimalsFrom(
+            @Nullable String locationOrLatLng,
+            int offset,
+            @NonNull PagingPolicy policy,
+            @NonNull FilterParams filters,
+            @Nullable CallScope scope
+    ) throws Exception {
+        return search(locationOrLatLng, offset, policy, filters, scope, false);
+    }
+
+    /**
+     * Fetches again a page served earlier by {@link #searchAnimalsFrom}, e.g. after the list dropped
+     * its rows. A multi-type search replays just that page from the per-type positions recorded when
+     * it was first merged, and the cursor serving the next forward page is left where it is.
+     */
+    public AnimalsResponse reloadAnimalsFrom(
+            @Nullable String locationOrLatLng,
+            int offset,
+            @NonNull PagingPolicy policy,
+            @NonNull FilterParams filters,
+            @Nullable CallScope scope
+    ) throws Exception {
+        return search(locationOrLatLng, offset, policy, filters, scope, true);
+    }
+
+    private AnimalsResponse search(
+            @Nullable String locationOrLatLng,
+            int offset,
+            @NonNull PagingPolicy policy,
+            @NonNull FilterParams filters,
+            @Nullable CallScope scope,
+            boolean reload
+    ) throws Exception {
 
         Map<String, String> q = new HashMap<>(filters.toQueryMap(locationOrLatLng));
         q.put("status", "adoptable");
@@ -114,77 +138,96 @@ public class PetfinderRepository {
             typesToQuery.add(filters.type.trim());
         }
 
+        int from = Math.max(0, offset);
+        int limit = policy.limitFor(from);
+
         if (typesToQuery.size() <= 1) {
-            q.put("page", Integer.toString(Math.max(1, page)));
-            q.put("limit", Integer.toString(Math.max(1, Math.min(100, limit))));
+            q.put("page", Integer.toString(PagingPolicy.pageFor(from, limit)));
+            q.put("limit", Integer.toString(limit));
 
             Log.d(TAG, "GET /animals (single type) " + q.toString() + " types=" + typesToQuery);
-            retrofit2.Response<AnimalsResponse> resp = api.searchAnimals(q, typesToQuery).execute();
+            retrofit2.Response<AnimalsResponse> resp = execute(scope, api.searchAnimals(q, typesToQuery));
 
             if (!resp.isSuccessful()) {
                 String errBody = safeBody(resp);
                 Log.e(TAG, "HTTP " + resp.code() + " searching animals – " + errBody);
-                throw new IOException("Petfinder search failed: " + resp.code());
+                throw new SearchFailedException(resp.code());
             }
             AnimalsResponse body = resp.body();
-            return (body != null) ? body : new AnimalsResponse();
+            return (body != null) ? dropLeading(body, PagingPolicy.skipFor(from, limit)) : new AnimalsResponse();
         }
 
-        q.put("limit", "100"); // Fetch up to 100 of each selected type
-        q.put("page", "1");    // Always get the first page for each type
-
-        Log.d(TAG, "Performing multi-type search for: " + typesToQuery);
-        List<Animal> combinedAnimals = new ArrayList<>();
-
-        for (String type : typesToQuery) {
-            try {
-                List<String> singleType = Collections.singletonList(type);
-                Log.d(TAG, "GET /animals (part of multi-type) " + q.toString() + " type=" + type);
-                // Call the API for just one type at a time
-                retrofit2.Response<AnimalsResponse> resp = api.searchAnimals(q, singleType).execute();
-
-                if (resp.isSuccessful() && resp.body() != null && resp.body().animals != null) {
-                    combinedAnimals.addAll(resp.body().animals);
-                } else {
-                    Log.w(TAG, "Failed to get results for type '" + type + "': HTTP " + resp.code());
+        String key = cursorKey(q, typesToQuery, policy);
+
+        MultiTypeCursor.PageFetcher fetcher = (type, p, l) -> fetchSingleType(q, type, p, l, scope);
+
+        synchronized (cursorLock) {
+            boolean byDistance = "distance".equals(q.get("sort"));
+            MultiTypeCursor merge;
+            if (reload) {
+                // A private cursor, so reloading an earlier page never rewinds the forward one
+                merge = (cursor != null && cursor.key().equals(key)) ? cursor.replayAt(from) : null;
+                if (merge == null) merge = new MultiTypeCursor(key, typesToQuery, byDistance, policy, typeFetchPool);
+            } else {
+                // The first page, a different query or a jump backwards all start a fresh cursor
+                if (cursor == null || from == 0 || !cursor.key().equals(key) || cursor.served() > from) {
+                    Log.d(TAG, "Performing multi-type search for: " + typesToQuery);
+                    cursor = new MultiTypeCursor(key, typesToQuery, byDistance, policy, typeFetchPool);
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "Error fetching animals for type '" + type + "'", e);
+                merge = cursor;
             }
+            AnimalsResponse mergedResponse = new AnimalsResponse();
+            try {
+                merge.advanceTo(from, fetcher);
+                merge.drainBytes(); // skipped rows are not part of this page
+                mergedResponse.animals = merge.take(limit, fetcher);
+                mergedResponse.payloadBytes = merge.drainBytes();
+            } finally {
+                // A cancelled page leaves the buffers half-drained; the next request starts over
+                if (!reload && scope != null && scope.isCancelled()) cursor = null;
+            }
+            if (scope != null && scope.isCancelled()) throw new IOException("Canceled");
+
+            com.example.petpalfinder.model.petfinder.Pagination pagination = new com.example.petpalfinder.model.petfinder.Pagination();
+            pagination.count_per_page = limit;
+            // Types that failed or ran short can end the merge before the advertised total
+            pagination.total_count = merge.isExhausted() ? merge.served() : merge.totalCount();
+            pagination.current_page = PagingPolicy.pageFor(from, limit);
+            pagination.total_pages = merge.isExhausted()
+                    ? pagination.current_page
+                    : Math.max(pagination.current_page, (pagination.total_count + limit - 1) / limit);
+            mergedResponse.pagination = pagination;
+
+            return mergedResponse;
         }
-
-        // Sort the combined list to ensure a consistent order (by distance)
-        if ("distance".equals(filters.sort)) {
-            combinedAnimals.sort(Comparator.comparing(
-                    animal -> animal.distance != null ? animal.distance : Double.MAX_VALUE
-            ));
-        }
-
-        // Create a new response object containing the merged list of animals
-        AnimalsResponse mergedResponse = new AnimalsResponse();
-        mergedResponse.animals = combinedAnimals;
-
-        // Signal that only one page is available
-        com.example.petpalfinder.model.petfinder.Pagination pagination = new com.example.petpalfinder.model.petfinder.Pagination();
-        pagination.current_page = 1;
-        pagination.total_pages = 1; // This tells the ViewModel there are no more pages.
-        pagination.total_count = combinedAnimals.size();
-        mergedResponse.pagination = pagination;
-
-        return mergedResponse;
     }
 
     public Animal getAnimal(long id) throws IOException {
-        retrofit2.Response<SingleAnimalResponse> r = api.getAnimal(id).execute();
+        retrofit2.Response<SingleAnimalResponse> r = execute(null, api.getAnimal(id));
         if (!r.isSuccessful()) {
             Log.e(TAG, "HTTP " + r.code() + " getAnimal(" + id + "): " + safeBody(r));
             return null;
         }
-        return (r.body() != null) ? r.body().animal : null;
+        Animal a = (r.body() != null) ? r.body().animal : null;
+        AnimalVocabulary.canonicalize(a);
+        return a;
+    }
+
+    /**
+     * Full record for an animal that may be a search-list projection; non-projected animals are returned
+     * as is. The listed animal is shared with the search results and is never modified: the record is a
+     * new instance, carrying over the distance the search reported since the detail endpoint has none.
+     */
+    public Animal hydrate(@NonNull Animal a) throws IOException {
+        if (!a.projected) return a;
+        Animal full = getAnimal(a.id);
+        if (full == null) throw new IOException("Could not load the details for " + a.name);
+        if (full.distance == null) full.distance = a.distance;
+        return full;
     }
 
     public Organization getOrganization(String id) throws IOException {
-        retrofit2.Response<OrganizationResponse> r = api.getOrganization(id).execute();
+        retrofit2.Response<OrganizationResponse> r = execute(null, api.getOrganization(id));
         if (!r.isSuccessful()) {
             Log.e(TAG, "HTTP " + r.code() + " getOrganization(" + id + "): " + safeBody(r));
             return null;
@@ -194,10 +237,56 @@ public class PetfinderRepository {
 
     // ----- Helpers -----
 
-    private static int responseCount(Response response) {
-        int count = 1;
-        while ((response = response.priorResponse()) != null) count++;
-        return count;
+    /**
+     * One page of one leg of a multi-type search. Returns null (after logging) when the type cannot be
+     * searched; throws on rate limiting and server errors, which the cursor retries.
+     */
+    @Nullable
+    private AnimalsResponse fetchSingleType(Map<String, String> base, String type, int page, int limit,
+                                            @Nullable CallScope scope) throws IOException {
+        Map<String, String> q = new HashMap<>(base);
+        q.put("page", Integer.toString(page));
+        q.put("limit", Integer.toString(limit));
+        Log.d(TAG, "GET /animals (part of multi-type) " + q.toString() + " type=" + type);
+        retrofit2.Response<AnimalsResponse> resp = execute(scope, api.searchAnimals(q, Collections.singletonList(type)));
+        if (resp.isSuccessful() && resp.body() != null && resp.body().animals != null) {
+            return resp.body();
+        }
+        Log.w(TAG, "Failed to get results for type '" + type + "': HTTP " + resp.code());
+        if (resp.code() == 429 || resp.code() >= 500) throw new IOException("HTTP " + resp.code() + " for type " + type);
+        return null;
+    }
+
+    /**
+     * {@code r} without its first {@code skip} animals, the overlap of a realigning page. A copy, since
+     * the coalescer may have handed the same response to other callers.
+     */
+    private static AnimalsResponse dropLeading(AnimalsResponse r, int skip) {
+        if (skip == 0 || r.animals == null) return r;
+        AnimalsResponse out = new AnimalsResponse();
+        out.animals = new ArrayList<>(r.animals.subList(Math.min(skip, r.animals.size()), r.animals.size()));
+        out.pagination = r.pagination;
+        out.payloadBytes = r.payloadBytes;
+        return out;
+    }
+
+    /** Every Petfinder call goes through the coalescer, so identical concurrent requests share one response. */
+    private <T> retrofit2.Response<T> execute(@Nullable CallScope scope, Call<T> call) throws IOException {
+        return coalescer.execute(call, scope);
+    }
+
+    /** Identifies a multi-type search independent of map iteration order. */
+    private static String cursorKey(Map<String, String> q, List<String> types, PagingPolicy policy) {
+        return new TreeMap<>(q).toString() + types + "#" + policy.name;
+    }
+
+    private static ExecutorService newTypeFetchPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                MAX_PARALLEL_TYPES, MAX_PARALLEL_TYPES,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>());
+        pool.allowCoreThreadTimeOut(true); // don't pin threads while nobody is searching
+        return pool;
     }
 
     private static String safeBody(retrofit2.Response<?> r) {
@@ -208,78 +297,4 @@ public class PetfinderRepository {
             return "<unreadable>";
         }
     }
-
-    // ----- Simple token provider -----
-
-    private static final class TokenProvider {
-        private static final String BASE = "https://api.petfinder.com/v2/";
-        private final String clientId;
-        private final String clientSecret;
-
-        // cached token
-        private volatile String accessToken = null;
-        private volatile long   expiryEpochMillis = 0L;
-
-        private final OkHttpClient bare = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                .build();
-
-        TokenProvider(String clientId, String clientSecret) {
-            this.clientId = clientId;
-            this.clientSecret = clientSecret;
-        }
-
-        synchronized String getValidToken() throws IOException {
-            long now = System.currentTimeMillis();
-            if (accessToken == null || now >= expiryEpochMillis) {
-                fetchToken();
-            }
-            return accessToken;
-        }
-
-        synchronized void forceRefresh() {
-            accessToken = null;
-            expiryEpochMillis = 0L;
-        }
-
-        private void fetchToken() throws IOException {
-            FormBody form = new FormBody.Builder()
-                    .add("grant_type", "client_credentials")
-                    .add("client_id", clientId)
-                    .add("client_secret", clientSecret)
-                    .build();
-
-            Request req = new Request.Builder()
-                    .url(BASE + "oauth2/token")
-                    .post(form)
-                    .build();
-
-            try (Response resp = bare.newCall(req).execute()) {
-                if (!resp.isSuccessful()) {
-                    String body = (resp.body() != null) ? resp.body().string() : "<empty>";
-                    Log.e(TAG, "Token fetch failed " + resp.code() + ": " + body);
-                    throw new IOException("Token fetch failed: " + resp.code());
-                }
-                String body = (resp.body() != null) ? resp.body().string() : "{}";
-                JSONObject json = new JSONObject(body);
-                accessToken = json.optString("access_token", null);
-                int expiresIn = json.optInt("expires_in", 0);
-                // Refresh a minute early
-                long skewMs = 60_000L;
-                expiryEpochMillis = System.currentTimeMillis() + Math.max(0, expiresIn * 1000L - skewMs);
-
-                if (accessToken == null || accessToken.isEmpty()) {
-                    throw new IOException("Token missing in response");
-                }
-                Log.d(TAG, "Fetched Petfinder token, expires in ~" + expiresIn + "s");
-            } catch (Exception e) {
-                // Ensure state is cleared so next attempt can try again
-                accessToken = null;
-                expiryEpochMillis = 0L;
-                if (e instanceof IOException) throw (IOException) e;
-                throw new IOException(e);
-            }
-        }
-    }
 }
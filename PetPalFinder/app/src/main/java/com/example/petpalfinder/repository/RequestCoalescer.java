@@ -0,0 +1,155 @@
+package com.example.petpalfinder.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Collapses identical concurrent Petfinder calls into one network request.
+ *
+ * Calls are keyed on method, path and the sorted query parameters (repeated {@code type} values
+ * included), so two screens asking for the same page share one call and one parsed response.
+ * If the shared call is cancelled by its owner, waiters that still want the answer issue their own.
+ * An error body is read once and handed to each caller as its own copy, since a response body can
+ * only be consumed once. Waiters block on the owner's future and are woken by their own scope's
+ * cancellation.
+ */
+final class RequestCoalescer {
+    private static final String TAG = "RequestCoalescer";
+
+    /** A finished call in a form every caller can read: the response plus its error body, buffered. */
+    private static final class Shared {
+        final Response<?> response;
+        @Nullable final byte[] error;
+        @Nullable final MediaType errorType;
+
+        Shared(Response<?> response) {
+            this.response = response;
+            byte[] error = null;
+            MediaType errorType = null;
+            ResponseBody body = response.errorBody();
+            if (!response.isSuccessful()) {
+                error = new byte[0];
+                if (body != null) {
+                    errorType = body.contentType();
+                    try {
+                        error = body.bytes();
+                    } catch (IOException e) {
+                        Log.w(TAG, "Could not buffer an error body", e);
+                    }
+                }
+            }
+            this.error = error;
+            this.errorType = errorType;
+        }
+
+        /** The response with a fresh, unread error body. */
+        @SuppressWarnings("unchecked")
+        <T> Response<T> copy() {
+            if (error == null) return (Response<T>) response;
+            return Response.error(ResponseBody.create(error, errorType), response.raw());
+        }
+    }
+
+    private final ConcurrentHashMap<String, CompletableFuture<Shared>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong saved = new AtomicLong();
+
+    <T> Response<T> execute(Call<T> call, @Nullable CallScope scope) throws IOException {
+        String key = keyOf(call.request());
+        while (true) {
+            CompletableFuture<Shared> mine = new CompletableFuture<>();
+            CompletableFuture<Shared> running = inFlight.putIfAbsent(key, mine);
+            if (running == null) {
+                issued.incrementAndGet();
+                try {
+                    Shared r = new Shared(executeTracked(call, scope));
+                    mine.complete(r);
+                    return r.copy();
+                } catch (Throwable e) {
+                    // Waiters that still want the answer retry instead of inheriting our cancellation
+                    if (call.isCanceled()) mine.cancel(false);
+                    else mine.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            }
+
+            Shared shared = await(running, call, scope);
+            if (shared != null) {
+                long n = saved.incrementAndGet();
+                Log.d(TAG, "Joined in-flight " + key + " (" + n + " calls saved, " + issued.get() + " issued)");
+                return shared.copy();
+            }
+            // The shared call was cancelled under us; go again, possibly as the owner this time
+        }
+    }
+
+    /** Waits for a shared call. Returns null if it was cancelled by its owner while we still want it. */
+    @Nullable
+    private static Shared await(CompletableFuture<Shared> running, Call<?> ours,
+                                @Nullable CallScope scope) throws IOException {
+        if (ours.isCanceled()) throw new IOException("Canceled");
+        // Completed by the owner, or early by our own scope's cancellation
+        CompletableFuture<Shared> wait = new CompletableFuture<>();
+        running.whenComplete((r, e) -> {
+            if (e instanceof CancellationException) wait.complete(null);
+            else if (e != null) wait.completeExceptionally(e);
+            else wait.complete(r);
+        });
+        Runnable wake = () -> wait.completeExceptionally(new IOException("Canceled"));
+        if (scope != null) scope.onCancel(wake);
+        try {
+            return wait.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a shared call");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        } finally {
+            if (scope != null) scope.removeOnCancel(wake);
+        }
+    }
+
+    private static <T> Response<T> executeTracked(Call<T> call, @Nullable CallScope scope) throws IOException {
+        if (scope == null) return call.execute();
+        scope.track(call);
+        try {
+            return call.execute();
+        } finally {
+            scope.untrack(call);
+        }
+    }
+
+    static String keyOf(Request req) {
+        HttpUrl url = req.url();
+        List<String> params = new ArrayList<>(url.querySize());
+        for (int i = 0; i < url.querySize(); i++) {
+            String v = url.queryParameterValue(i);
+            params.add(url.queryParameterName(i) + "=" + (v != null ? v : ""));
+        }
+        Collections.sort(params);
+        return req.method() + " " + url.encodedPath() + "?" + String.join("&", params);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.petpalfinder.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.petpalfinder.database.AppDatabase;
+import com.example.petpalfinder.database.GeocodeDao;
+import com.example.petpalfinder.database.ReverseGeocodeEntry;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Address labels for device-location searches, keyed by geohash cell instead of exact coordinates.
+ *
+ * GPS fixes jitter by tens of metres, so two "my location" taps from the same spot never share a
+ * {@code lat,lng}; they do share a precision-6 geohash (about 1.2 x 0.6 km), which is as fine as a
+ * search-bar label needs. Labels are persisted in {@code reverse_geocode_cache} and all fresh rows
+ * are loaded into memory once, on a background thread, so {@link #peek} never touches the disk.
+ * Right after a cold start that load may still be running; {@link #find} waits for it.
+ */
+public final class ReverseGeocodeCache {
+    private static final String TAG = "ReverseGeocodeCache";
+    private static final int PRECISION = 6;
+    private static final long TTL_MS = TimeUnit.DAYS.toMillis(14);
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private static volatile ReverseGeocodeCache INSTANCE;
+
+    /** Receives the label found by {@link #find}, or null. */
+    public interface Callback {
+        void onResult(@Nullable String label);
+    }
+
+    private final GeocodeDao dao;
+    private final Map<String, String> labels = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    public static ReverseGeocodeCache get(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ReverseGeocodeCache.class) {
+                if (INSTANCE == null) INSTANCE = new ReverseGeocodeCache(context.getApplicationContext());
+            }
+        }
+        return INSTANCE;
+    }
+
+    private ReverseGeocodeCache(Context appContext) {
+        dao = AppDatabase.getDatabase(appContext).geocodeDao();
+        AppDatabase.databaseWriteExecutor.execute(this::load);
+    }
+
+    /** Cached label for the cell containing the point, or null. Memory only, safe on the main thread. */
+    @Nullable
+    public String peek(double lat, double lng) {
+        String cell = cellOf(lat, lng);
+        String label = labels.get(cell);
+        if (label != null) hits.incrementAndGet(); else misses.incrementAndGet();
+        Log.d(TAG, (label != null ? "Hit " : "Miss ") + cell + " (" + stats() + ")");
+        return label;
+    }
+
+    /**
+     * Like {@link #peek}, but waits for the stored labels to finish loading first, so the first
+     * search after a cold start can still hit. Answers on the calling thread once loaded, otherwise
+     * on a database thread.
+     */
+    public void find(double lat, double lng, Callback callback) {
+        if (loaded.getCount() == 0) {
+            callback.onResult(peek(lat, lng));
+            return;
+        }
+        AppDatabase.databaseWriteExecutor.execute(() -> {
+            try {
+                loaded.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            callback.onResult(peek(lat, lng));
+        });
+    }
+
+    /** Remembers {@code formatted} for the point's cell; the disk write happens in the background. */
+    public void put(double lat, double lng, @Nullable String formatted) {
+        if (formatted == null || formatted.isEmpty()) return;
+        String cell = cellOf(lat, lng);
+        labels.put(cell, formatted);
+        ReverseGeocodeEntry e = new ReverseGeocodeEntry();
+        e.cell = cell;
+        e.formatted = formatted;
+        e.writtenAt = System.currentTimeMillis();
+        e.ttlMillis = TTL_MS;
+        AppDatabase.databaseWriteExecutor.execute(() -> {
+            try {
+                dao.upsertReverse(e);
+            } catch (RuntimeException ex) {
+                Log.w(TAG, "reverse_geocode_cache write failed for " + cell, ex);
+            }
+        });
+    }
+
+    public double hitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public String stats() {
+        return String.format(Locale.US, "location label cache: %d hits, %d misses (hit rate %.0f%%)",
+                hits.get(), misses.get(), hitRate() * 100);
+    }
+
+    private void load() {
+        try {
+            long now = System.currentTimeMillis();
+            dao.deleteExpiredReverse(now);
+            List<ReverseGeocodeEntry> rows = dao.freshReverse(now);
+            for (ReverseGeocodeEntry e : rows) {
+                // A label written since startup is newer than the stored one
+                if (e.formatted != null) labels.putIfAbsent(e.cell, e.formatted);
+            }
+            Log.d(TAG, "Loaded " + rows.size() + " cached location labels");
+        } catch (RuntimeException ex) {
+            Log.w(TAG, "reverse_geocode_cache load failed", ex);
+        } finally {
+            loaded.countDown();
+        }
+    }
+
+    /** Standard geohash of the point at {@link #PRECISION} characters. */
+    static String cellOf(double lat, double lng) {
+        double latLo = -90, latHi = 90, lngLo = -180, lngHi = 180;
+        StringBuilder sb = new StringBuilder(PRECISION);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+        while (sb.length() < PRECISION) {
+            if (evenBit) {
+                double mid = (lngLo + lngHi) / 2;
+                if (lng >= mid) { ch = (ch << 1) | 1; lngLo = mid; } else { ch <<= 1; lngHi = mid; }
+            } else {
+                double mid = (latLo + latHi) / 2;
+                if (lat >= mid) { ch = (ch << 1) | 1; latLo = mid; } else { ch <<= 1; latHi = mid; }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                sb.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.petpalfinder.repository;
+
+import java.io.IOException;
+
+/** Petfinder answered a search with an HTTP error; {@link #code} tells a rejected query (4xx) from an outage. */
+public class SearchFailedException extends IOException {
+    public final int code;
+
+    public SearchFailedException(int code) {
+        super("Petfinder search failed: " + code);
+        this.code = code;
+    }
+}
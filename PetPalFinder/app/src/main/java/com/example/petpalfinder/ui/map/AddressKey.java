@@ -0,0 +1,178 @@
+package com.example.petpalfinder.ui.map;
+
+import androidx.annotation.Nullable;
+
+import com.example.petpalfinder.model.petfinder.Address;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical geocoding query for a Petfinder contact address.
+ *
+ * Two spellings of the same shelter ("Unit 4, 12 Main Street" and "12 main st") should hit the same
+ * cache entry and the same OpenCage call, so the key drops unit/suite numbers, abbreviates common
+ * street suffixes, standardizes postcodes and country names, and lowercases and collapses whitespace.
+ * Unit numbers don't move a geocode anyway.
+ *
+ * It also carries the city key {@link CentroidTable} answers, so addresses without a street line
+ * can be placed offline.
+ */
+final class AddressKey {
+    /** Used for animals without a contact address. */
+    static final AddressKey FALLBACK = new AddressKey("toronto, on, ca", false, "ca:on:toronto");
+
+    // Provinces and territories, to tell a Canadian city key from a US one when the country is missing
+    private static final Set<String> CA_PROVINCES = new HashSet<>(Arrays.asList(
+            "ab", "bc", "mb", "nb", "nl", "ns", "nt", "nu", "on", "pe", "qc", "sk", "yt"));
+
+    // The keyword must end at a word boundary or run into the number ("Apt4"), so "United Way" and
+    // "Aptos Dr" are left alone
+    private static final Pattern UNIT = Pattern.compile(
+            "(?:\\b(?:unit|suite|apt|apartment)(?:\\b\\.?|(?=\\d))\\s*#?\\s*[\\w-]+)|(?:#\\s*[\\w-]+)",
+            Pattern.CASE_INSENSITIVE);
+    // Canadian "4-123 Main St" style unit prefix, or a "123-125 Main St" civic range; see unitPrefix()
+    private static final Pattern UNIT_PREFIX = Pattern.compile("^(\\w+)\\s*-\\s*(\\d+)");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}\\s-]");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern CA_POSTCODE = Pattern.compile("([A-Z]\\d[A-Z])\\s*(\\d[A-Z]\\d)");
+    private static final Pattern US_ZIP = Pattern.compile("(\\d{5})(?:-\\d{4})?");
+
+    private static final Map<String, String> SUFFIXES = new HashMap<>();
+    static {
+        SUFFIXES.put("street", "st");
+        SUFFIXES.put("avenue", "ave");
+        SUFFIXES.put("av", "ave");
+        SUFFIXES.put("road", "rd");
+        SUFFIXES.put("drive", "dr");
+        SUFFIXES.put("boulevard", "blvd");
+        SUFFIXES.put("crescent", "cres");
+        SUFFIXES.put("court", "ct");
+        SUFFIXES.put("lane", "ln");
+        SUFFIXES.put("highway", "hwy");
+        SUFFIXES.put("place", "pl");
+        SUFFIXES.put("parkway", "pkwy");
+        SUFFIXES.put("concession", "conc");
+    }
+
+    /** Canonical query, also the cache and dedup key. */
+    final String query;
+    /** True if the address has a street line, i.e. is more precise than postcode or city. */
+    final boolean hasStreet;
+    /** {@link CentroidTable} key, e.g. "ca:on:toronto"; null if unknown. */
+    @Nullable final String cityKey;
+
+    private AddressKey(String query, boolean hasStreet, @Nullable String cityKey) {
+        this.query = query;
+        this.hasStreet = hasStreet;
+        this.cityKey = cityKey;
+    }
+
+    /** The canonical key, or {@link #FALLBACK} if the address has nothing to geocode. */
+    static AddressKey of(@Nullable Address a) {
+        if (a == null) return FALLBACK;
+        String street1 = street(a.address1);
+        String street2 = street(a.address2);
+        String city = plain(a.city);
+        String state = plain(a.state);
+        String postcode = postcode(a.postcode);
+        String country = country(a.country);
+
+        StringBuilder sb = new StringBuilder();
+        append(sb, street1);
+        append(sb, street2);
+        append(sb, city);
+        append(sb, state);
+        append(sb, postcode);
+        append(sb, country);
+        if (sb.length() == 0) return FALLBACK;
+
+        if (country == null && postcode != null) {
+            if (CA_POSTCODE.matcher(postcode.toUpperCase(Locale.ROOT)).matches()) country = "ca";
+            else if (US_ZIP.matcher(postcode).matches()) country = "us";
+        }
+        if (country == null && state != null) country = CA_PROVINCES.contains(state) ? "ca" : "us";
+
+        String cityKey = (city != null && state != null && country != null) ? country + ":" + state + ":" + city : null;
+
+        return new AddressKey(sb.toString(), street1 != null || street2 != null, cityKey);
+    }
+
+    @Nullable
+    private static String street(@Nullable String line) {
+        if (line == null) return null;
+        String s = plain(UNIT.matcher(line).replaceAll(" "));
+        if (s == null) return null;
+        Matcher prefix = UNIT_PREFIX.matcher(s);
+        if (prefix.find() && isUnitPrefix(prefix.group(1), prefix.group(2))) s = s.substring(prefix.start(2));
+        StringBuilder out = new StringBuilder();
+        for (String word : SPACES.split(s.trim())) {
+            if (word.isEmpty()) continue;
+            String abbr = SUFFIXES.get(word);
+            if (out.length() > 0) out.append(' ');
+            out.append(abbr != null ? abbr : word);
+        }
+        return out.length() == 0 ? null : out.toString();
+    }
+
+    /**
+     * True if "{@code first}-{@code number}" is a unit in front of the civic number ("4-123", "b-12",
+     * "1203-45") rather than a civic range ("123-125"), which is kept: a range has two numbers of the
+     * same length, the first one smaller.
+     */
+    private static boolean isUnitPrefix(String first, String number) {
+        for (int i = 0; i < first.length(); i++) {
+            if (!Character.isDigit(first.charAt(i))) return true;
+        }
+        if (first.length() != number.length()) return true;
+        return first.compareTo(number) >= 0;
+    }
+
+    @Nullable
+    private static String postcode(@Nullable String postcode) {
+        if (postcode == null) return null;
+        String p = postcode.trim().toUpperCase(Locale.ROOT);
+        Matcher ca = CA_POSTCODE.matcher(p);
+        if (ca.matches()) return (ca.group(1) + " " + ca.group(2)).toLowerCase(Locale.ROOT);
+        Matcher us = US_ZIP.matcher(p);
+        if (us.matches()) return us.group(1);
+        return plain(p);
+    }
+
+    @Nullable
+    private static String country(@Nullable String country) {
+        String c = plain(country);
+        if (c == null) return null;
+        switch (c) {
+            case "canada":
+                return "ca";
+            case "usa":
+            case "united states":
+            case "united states of america":
+                return "us";
+            default:
+                return c;
+        }
+    }
+
+    /** Lowercase, punctuation stripped, whitespace collapsed; null if nothing is left. */
+    @Nullable
+    private static String plain(@Nullable String s) {
+        if (s == null) return null;
+        String t = NON_WORD.matcher(s.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        t = SPACES.matcher(t).replaceAll(" ").trim();
+        return t.isEmpty() ? null : t;
+    }
+
+    private static void append(StringBuilder sb, @Nullable String part) {
+        if (part == null) return;
+        if (sb.length() > 0) sb.append(", ");
+        sb.append(part);
+    }
+}
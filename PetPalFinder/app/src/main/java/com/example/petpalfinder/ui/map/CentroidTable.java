@@ -0,0 +1,122 @@
+package com.example.petpalfinder.ui.map;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.mapbox.geojson.Point;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Offline centroids for city/state pairs, read from a memory-mapped table in
+ * {@code assets/centroids.bin} (stored uncompressed). The table is generated at build time
+ * from {@code app/centroids/centroids.csv} by the {@code generateCentroids} task in build.gradle.kts;
+ * add rows there to cover more places.
+ *
+ * Layout, little-endian: a 16-byte header ({@code int magic "PPCT", int version 1, int count,
+ * int reserved}) then {@code count} 16-byte records sorted by key hash: {@code long fnv1a64(key),
+ * float lat, float lng}. Keys are the city keys {@link AddressKey} produces ("ca:on:toronto"). A
+ * lookup is one binary search over the mapped records, no parsing or heap copies. Keys
+ * missing from the table fall through to {@link MapGeocoder}'s online lookup.
+ */
+final class CentroidTable {
+    private static final String TAG = "CentroidTable";
+    static final String ASSET = "centroids.bin";
+    private static final int MAGIC = 0x54435050; // "PPCT" read little-endian
+    private static final int HEADER = 16;
+    private static final int RECORD = 16;
+
+    private static final CentroidTable EMPTY = new CentroidTable(null, 0);
+    private static volatile CentroidTable instance;
+
+    @Nullable private final ByteBuffer records;
+    private final int count;
+
+    private CentroidTable(@Nullable ByteBuffer records, int count) {
+        this.records = records;
+        this.count = count;
+    }
+
+    /** Maps the table on first use; call from a background thread. */
+    @WorkerThread
+    static CentroidTable get(@Nullable Context context) {
+        CentroidTable t = instance;
+        if (t != null) return t;
+        if (context == null) return EMPTY; // not initialized yet, try again next time
+        synchronized (CentroidTable.class) {
+            if (instance == null) instance = open(context);
+            return instance;
+        }
+    }
+
+    private static CentroidTable open(Context context) {
+        try (AssetFileDescriptor fd = context.getAssets().openFd(ASSET);
+             FileInputStream in = fd.createInputStream()) {
+            FileChannel ch = in.getChannel();
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getLength())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != 1) {
+                Log.w(TAG, ASSET + " has an unknown format, offline geocoding disabled");
+                return EMPTY;
+            }
+            int count = buf.getInt(8);
+            if ((long) HEADER + (long) count * RECORD > buf.capacity()) {
+                Log.w(TAG, ASSET + " is truncated, offline geocoding disabled");
+                return EMPTY;
+            }
+            Log.d(TAG, "Mapped " + count + " centroids");
+            return new CentroidTable(buf, count);
+        } catch (IOException e) {
+            Log.i(TAG, "No " + ASSET + " bundled, offline geocoding disabled");
+            return EMPTY;
+        }
+    }
+
+    /** The city's centroid; null if the city is not in the table. */
+    @Nullable
+    Point lookup(AddressKey key) {
+        return (key.cityKey != null) ? find(key.cityKey) : null;
+    }
+
+    @Nullable
+    Point find(String key) {
+        ByteBuffer buf = records;
+        if (buf == null) return null;
+        long h = fnv1a64(key);
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int at = HEADER + mid * RECORD;
+            long cur = buf.getLong(at);
+            if (cur < h) {
+                lo = mid + 1;
+            } else if (cur > h) {
+                hi = mid - 1;
+            } else {
+                return Point.fromLngLat(buf.getFloat(at + 12), buf.getFloat(at + 8));
+            }
+        }
+        return null;
+    }
+
+    /** 64-bit FNV-1a over the key's UTF-8 bytes; records are sorted by this as a signed long. */
+    static long fnv1a64(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
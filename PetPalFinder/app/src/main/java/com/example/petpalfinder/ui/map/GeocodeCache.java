@@ -0,0 +1,165 @@
+package com.example.petpalfinder.ui.map;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.petpalfinder.database.AppDatabase;
+import com.example.petpalfinder.database.GeocodeDao;
+import com.example.petpalfinder.database.GeocodeEntry;
+import com.mapbox.geojson.Point;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache of normalized address -> point for {@link MapGeocoder}.
+ *
+ * Tier one is a bounded in-memory LRU. Tier two is the {@code geocode_cache} Room table, opened on
+ * first use and read through on a memory miss, so entries survive process death. Both tiers also
+ * hold misses (a {@link Lookup} without a point) and every entry carries its own TTL.
+ */
+final class GeocodeCache {
+    private static final String TAG = "GeocodeCache";
+    private static final int MEMORY_ENTRIES = 512;
+
+    /** A cached answer: a point, or a remembered "no result". */
+    static final class Lookup {
+        @Nullable final Point point;
+        final long expiresAt;
+
+        Lookup(@Nullable Point point, long expiresAt) {
+            this.point = point;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean found() { return point != null; }
+    }
+
+    private final Map<String, Lookup> memory = new LinkedHashMap<String, Lookup>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Lookup> eldest) {
+            return size() > MEMORY_ENTRIES;
+        }
+    };
+
+    @Nullable private volatile Context appContext;
+    @Nullable private volatile GeocodeDao dao;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /** Enables the persistent tier; without it the cache is memory only. */
+    void attach(Context context) {
+        if (appContext == null) appContext = context.getApplicationContext();
+    }
+
+    static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /** The cached answer for {@code key} (already normalized), or null if nothing fresh is cached. */
+    @Nullable
+    @WorkerThread
+    Lookup get(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            Lookup hit = memory.get(key);
+            if (hit != null && hit.expiresAt > now) {
+                memoryHits.incrementAndGet();
+                return hit;
+            }
+            if (hit != null) memory.remove(key);
+        }
+
+        GeocodeDao d = dao();
+        if (d != null) {
+            try {
+                GeocodeEntry e = d.find(key);
+                if (e != null && !e.isExpired(now)) {
+                    Lookup hit = new Lookup(e.found ? Point.fromLngLat(e.lng, e.lat) : null,
+                            e.writtenAt + e.ttlMillis);
+                    synchronized (memory) { memory.put(key, hit); }
+                    diskHits.incrementAndGet();
+                    return hit;
+                }
+            } catch (RuntimeException ex) {
+                Log.w(TAG, "geocode_cache read failed for " + key, ex);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /** Memory-tier lookup that does not count towards the hit rate. */
+    @Nullable
+    Lookup peek(String key) {
+        synchronized (memory) {
+            Lookup hit = memory.get(key);
+            return (hit != null && hit.expiresAt > System.currentTimeMillis()) ? hit : null;
+        }
+    }
+
+    /** Stores a result ({@code point == null} for a miss) in memory and, if {@code persist}, on disk. */
+    @WorkerThread
+    void put(String key, @Nullable Point point, long ttlMillis, boolean persist) {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            memory.put(key, new Lookup(point, now + ttlMillis));
+        }
+        GeocodeDao d = persist ? dao() : null;
+        if (d == null) return;
+        GeocodeEntry e = new GeocodeEntry();
+        e.query = key;
+        e.found = point != null;
+        if (point != null) {
+            e.lat = point.latitude();
+            e.lng = point.longitude();
+        }
+        e.writtenAt = now;
+        e.ttlMillis = ttlMillis;
+        try {
+            d.upsert(e);
+        } catch (RuntimeException ex) {
+            Log.w(TAG, "geocode_cache write failed for " + key, ex);
+        }
+    }
+
+    /** Lookups answered by either tier over all lookups. */
+    double hitRate() {
+        long h = memoryHits.get() + diskHits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    String stats() {
+        return String.format(Locale.US, "geocode cache: %d memory hits, %d disk hits, %d misses (hit rate %.0f%%)",
+                memoryHits.get(), diskHits.get(), misses.get(), hitRate() * 100);
+    }
+
+    /** Opens the table on first use (callers are background threads) and drops expired rows once. */
+    @Nullable
+    private GeocodeDao dao() {
+        GeocodeDao d = dao;
+        Context ctx = appContext;
+        if (d != null || ctx == null) return d;
+        synchronized (this) {
+            if (dao == null) {
+                d = AppDatabase.getDatabase(ctx).geocodeDao();
+                try {
+                    int purged = d.deleteExpired(System.currentTimeMillis());
+                    if (purged > 0) Log.d(TAG, "Purged " + purged + " expired geocodes");
+                } catch (RuntimeException ex) {
+                    Log.w(TAG, "geocode_cache purge failed", ex);
+                }
+                dao = d;
+            }
+            return dao;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.petpalfinder.ui.map;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.mapbox.geojson.Point;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Geocodes a batch of addresses with at most {@code maxConcurrent} lookups in flight.
+ *
+ * All lookups go to the one geocoding host, so the pool size is the per-host concurrency limit;
+ * each network lookup also gets its own timeout. Results are reported one by one as they finish.
+ * Cancelling a {@link Run} is cooperative: queued lookups are skipped, lookups already on the wire
+ * finish (their answers still land in the geocode cache) but are no longer reported.
+ */
+final class GeocodePipeline {
+
+    interface Listener {
+        /** {@code point} is null when address {@code index} could not be geocoded. */
+        @WorkerThread
+        void onGeocoded(Run run, int index, @Nullable Point point);
+
+        /** Every address of {@code run} has been reported; not called for cancelled runs. */
+        @WorkerThread
+        void onFinished(Run run);
+    }
+
+    /** One batch; cancel it when its results are no longer wanted. */
+    static final class Run {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicInteger remaining;
+
+        private Run(int size) {
+            remaining = new AtomicInteger(size);
+        }
+
+        void cancel() { cancelled.set(true); }
+
+        boolean isCancelled() { return cancelled.get(); }
+    }
+
+    private final ThreadPoolExecutor pool;
+    private final long timeoutMs;
+
+    GeocodePipeline(int maxConcurrent, long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        pool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>());
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /** Starts geocoding {@code addresses}. */
+    Run start(List<AddressKey> addresses, Listener listener) {
+        Run run = new Run(addresses.size());
+        if (addresses.isEmpty()) {
+            pool.execute(() -> listener.onFinished(run));
+            return run;
+        }
+        for (int i = 0; i < addresses.size(); i++) {
+            final int index = i;
+            final AddressKey address = addresses.get(i);
+            pool.execute(() -> {
+                if (run.isCancelled()) return;
+                Point p = MapGeocoder.geocode(address, timeoutMs);
+                if (run.isCancelled()) return;
+                listener.onGeocoded(run, index, p);
+                if (run.remaining.decrementAndGet() == 0 && !run.isCancelled()) listener.onFinished(run);
+            });
+        }
+        return run;
+    }
+
+    /** Drops all queued work; for when the owner goes away. */
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
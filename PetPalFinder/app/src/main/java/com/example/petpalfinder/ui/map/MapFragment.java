@@ -8,6 +8,7 @@ import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
 import android.os.Bundle;
+import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -40,11 +41,10 @@ import com.example.petpalfinder.model.petfinder.Photo;
 import com.example.petpalfinder.ui.search.FilterBottomSheetFragment;
 import com.example.petpalfinder.ui.search.PetSearchViewModel;
 import com.google.android.material.textfield.TextInputEditText;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.mapbox.bindgen.Value;
 import com.mapbox.geojson.Feature;
-import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.geojson.Point;
 import com.mapbox.maps.CameraOptions;
 import com.mapbox.maps.EdgeInsets;
@@ -57,14 +57,14 @@ import com.mapbox.maps.plugin.gestures.GesturesUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MapFragment extends Fragment implements FilterBottomSheetFragment.Listener {
 
@@ -82,7 +82,24 @@ public class MapFragment extends Fragment implements FilterBottomSheetFragment.L
     private PetSearchViewModel sharedVm;
 
     // Concurrency and state management
-    private ExecutorService exec;
+    private static final int GEOCODE_PARALLELISM = 4; // concurrent lookups against the geocoding host
+    private static final long GEOCODE_TIMEOUT_MS = 8000;
+    private GeocodePipeline geocoder;
+    // One run per results emission still being geocoded (main thread only)
+    private final List<GeocodePipeline.Run> geocodeRuns = new ArrayList<>();
+    private final MapPinModel pins = new MapPinModel();
+
+    // Progressive rendering: pins are flushed to the map in batches while geocoding runs.
+    // The source data is encoded on the encoder thread; the main thread only hands it to Mapbox.
+    private static final int FLUSH_POINTS = 20;
+    private static final long FLUSH_INTERVAL_MS = 150;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger unflushedPins = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    @Nullable private volatile ScheduledExecutorService encoder;
+    private final Runnable flushTask = () -> encode(false);
+    @Nullable private Style mapStyle;
+    private int fittedPinCount = 0;
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private boolean cameraFittedOnce = false;
 
@@ -101,7 +118,8 @@ public class MapFragment extends Fragment implements FilterBottomSheetFragment.L
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         destroyed.set(false);
-        exec = Executors.newSingleThreadExecutor();
+        geocoder = new GeocodePipeline(GEOCODE_PARALLELISM, GEOCODE_TIMEOUT_MS);
+        MapGeocoder.init(requireContext());
 
         // Initialize the permission launcher to handle the result of the location permission request.
         locationPermsLauncher =
@@ -192,10 +210,12 @@ public class MapFragment extends Fragment implements FilterBottomSheetFragment.L
         // Load the map style and set up observers and tap handlers once loaded
         mapView.getMapboxMap().loadStyleUri(Style.MAPBOX_STREETS, style -> {
             setupMapStyle(style);
+            mapStyle = style;
+            encoder = Executors.newSingleThreadScheduledExecutor();
             sharedVm.results().observe(getViewLifecycleOwner(), animals -> {
                 if (animals == null) return;
                 if (!isAdded() || destroyed.get()) return;
-                geocodeAndShow(style, animals);
+                geocodeAndShow(animals);
             });
             sharedVm.getFilters().observe(getViewLifecycleOwner(), f -> cameraFittedOnce = false);
             attachTapHandlers();
@@ -241,7 +261,6 @@ public class MapFragment extends Fragment implements FilterBottomSheetFragment.L
     private void attachTapHandlers() {
         if (mapView == null) return;
         MapboxMap map = mapView.getMapboxMap();
-        Gson gson = new Gson();
 
         GesturesUtils.getGestures(mapView).addOnMapClickListener(point -> {
             if (infoWindow != null && infoWindow.getVisibility() == View.VISIBLE) {
@@ -256,9 +275,7 @@ public class MapFragment extends Fragment implements FilterBottomSheetFragment.L
                     if (feature.hasProperty("point_count")) { // Tapped a cluster
                         Toast.makeText(getContext(), "Zoom in to see individual pets", Toast.LENGTH_SHORT).show();
                     } else if (feature.hasProperty("isGroup")) { // Tapped a group of pets
-                        String idsJson = feature.getStringProperty("animalIdsJson");
-                        List<Long> ids = gson.fromJson(idsJson, new TypeToken<List<Long>>() {}.getType());
-                        showPetListDialog(ids);
+                        showPetListDialog(idsOf(feature.getProperty("animalIds")));
                     } else if (feature.hasProperty("animalId")) { // Tapped a single pet
                         Number idNum = feature.getNumberProperty("animalId");
                         if (idNum != null) {
@@ -279,80 +296,104 @@ public class MapFragment extends Fragment implements FilterBottomSheetFragment.L
         NavHostFragment.findNavController(this).navigate(MapFragmentDirections.actionMapToPetDetail(id));
     }
 
-    // Processes the list of animals, geocodes their locations, groups them, and updates the map
-    private void geocodeAndShow(@NonNull Style style, @NonNull List<Animal> animals) {
+    // Geocodes the animals added since the last emission and updates the map as each address resolves
+    private void geocodeAndShow(@NonNull List<Animal> animals) {
         if (destroyed.get()) return;
-        ensureExec().submit(() -> {
-            if (destroyed.get()) return;
-
-            // Group animals by their geocoded location
-            Map<String, List<Animal>> animalsByLocation = new LinkedHashMap<>();
-            Map<String, Point> locationPoints = new HashMap<>();
-            for (Animal a : animals) {
-                if (destroyed.get()) return;
-                String q = buildAddressQuery(a);
-                if (q == null || q.trim().isEmpty()) continue;
-                Point p = MapGeocoder.geocode(q);
-                if (p != null) {
-                    String key = String.format(Locale.US, "%.4f,%.4f", p.latitude(), p.longitude());
-                    if (!animalsByLocation.containsKey(key)) {
-                        animalsByLocation.put(key, new ArrayList<>());
-                        locationPoints.put(key, p);
-                    }
-                    animalsByLocation.get(key).add(a);
-                }
+        int listEpoch = sharedVm.listEpochOf(animals);
+        if (!pins.continues(listEpoch)) {
+            // A new search, not another page: everything still being geocoded is stale
+            cancelGeocoding();
+            pins.reset(listEpoch);
+            fittedPinCount = 0;
+        }
+
+        int before = pins.featureCount();
+        List<AddressKey> lookups = pins.accept(animals, this::buildAddressQuery);
+        Log.d(TAG, String.format(Locale.US, "%d new locations to geocode for %d animals (%d pins so far)",
+                lookups.size(), animals.size(), before));
+        if (lookups.isEmpty()) {
+            publish(null, true);
+            return;
+        }
+
+        geocodeRuns.add(ensurePipeline().start(lookups, new GeocodePipeline.Listener() {
+            @Override
+            public void onGeocoded(GeocodePipeline.Run run, int index, @Nullable Point p) {
+                pins.resolve(lookups.get(index).query, p);
+                if (p != null && !run.isCancelled()) pinAdded();
             }
 
-            // Create map features from the grouped animals
-            List<Feature> feats = new ArrayList<>();
-            List<Point> boundsPts = new ArrayList<>();
-            Gson gson = new Gson();
-            for (Map.Entry<String, List<Animal>> entry : animalsByLocation.entrySet()) {
-                Point point = locationPoints.get(entry.getKey());
-                List<Animal> petsAtLocation = entry.getValue();
-                if (point == null) continue;
-                boundsPts.add(point);
-                Feature f = Feature.fromGeometry(point);
-
-                if (petsAtLocation.size() == 1) { // Single pet at this location
-                    Animal singlePet = petsAtLocation.get(0);
-                    f.addNumberProperty("animalId", singlePet.id);
-                    if (singlePet.name != null) f.addStringProperty("name", singlePet.name);
-                } else { // Multiple pets at this location
-                    f.addBooleanProperty("isGroup", true);
-                    List<Long> ids = new ArrayList<>();
-                    for (Animal pet : petsAtLocation) {
-                        ids.add(pet.id);
-                    }
-                    f.addStringProperty("animalIdsJson", gson.toJson(ids));
-                    f.addNumberProperty("count", petsAtLocation.size());
-                }
-                feats.add(f);
+            @Override
+            public void onFinished(GeocodePipeline.Run run) {
+                Log.d(TAG, MapGeocoder.cacheStats());
+                publish(run, true);
             }
+        }));
+    }
 
-            // Update the map on the main thread
-            FeatureCollection fc = FeatureCollection.fromFeatures(feats);
-            FragmentActivity act = getActivity();
-            if (act == null || destroyed.get()) return;
-            act.runOnUiThread(() -> {
-                if (!isAdded() || destroyed.get() || mapView == null) return;
-                style.setStyleSourceProperty(SRC_ID, "data", Value.fromJson(fc.toJson()).getValue());
-
-                // Zoom the camera to fit all results, but only on the first load or after filters change
-                if (!cameraFittedOnce && boundsPts.size() >= 2) {
-                    try {
-                        EdgeInsets pad = new EdgeInsets(100.0, 100.0, 100.0, 100.0);
-                        CameraOptions cam = mapView.getMapboxMap().cameraForCoordinates(boundsPts, pad, 0.0, 0.0);
-                        mapView.getMapboxMap().setCamera(cam);
-                        cameraFittedOnce = true;
-                    } catch (Throwable t) {
-                        Log.w(TAG, "cameraForCoordinates failed", t);
-                    }
-                }
-            });
+    // Called from geocoding threads: flush after FLUSH_POINTS new pins, or FLUSH_INTERVAL_MS after the first one
+    private void pinAdded() {
+        ScheduledExecutorService enc = encoder;
+        if (enc == null) return;
+        if (unflushedPins.incrementAndGet() == FLUSH_POINTS) {
+            enc.execute(flushTask);
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            enc.schedule(flushTask, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Posts the final pins of a geocoding run (or of an update that needed no lookups)
+    private void publish(@Nullable GeocodePipeline.Run run, boolean last) {
+        FragmentActivity act = getActivity();
+        if (act == null || destroyed.get() || (run != null && run.isCancelled())) return;
+        act.runOnUiThread(() -> {
+            if (!isAdded() || destroyed.get() || mapView == null || (run != null && run.isCancelled())) return;
+            geocodeRuns.remove(run);
+            boolean complete = last && geocodeRuns.isEmpty();
+            ScheduledExecutorService enc = encoder;
+            if (enc != null) enc.execute(() -> encode(complete));
         });
     }
 
+    // Encoder thread: snapshots the pins into a Mapbox Value tree and hands it to the main thread
+    private void encode(boolean complete) {
+        flushScheduled.set(false);
+        unflushedPins.set(0);
+        if (destroyed.get()) return;
+        MapPinModel.Snapshot snapshot = pins.snapshot();
+        if (snapshot.changed == 0 && !complete) return;
+        mainHandler.post(() -> render(snapshot, complete));
+    }
+
+    // Pushes encoded pins to the map and refines the camera fit while results are still arriving
+    private void render(@NonNull MapPinModel.Snapshot snapshot, boolean complete) {
+        Style style = mapStyle;
+        if (!isAdded() || destroyed.get() || mapView == null || style == null) return;
+        if (snapshot.epoch != pins.epoch()) return; // encoded before a new search started
+
+        List<Point> boundsPts = snapshot.points;
+        Log.d(TAG, "Map update: " + snapshot.changed + " of " + boundsPts.size() + " pins changed");
+        style.setStyleSourceProperty(SRC_ID, "data", snapshot.data);
+
+        // Zoom the camera to fit all results, but only on the first load or after filters change
+        if (!cameraFittedOnce && boundsPts.size() >= 2 && (complete || boundsPts.size() != fittedPinCount)) {
+            try {
+                EdgeInsets pad = new EdgeInsets(100.0, 100.0, 100.0, 100.0);
+                CameraOptions cam = mapView.getMapboxMap().cameraForCoordinates(boundsPts, pad, 0.0, 0.0);
+                mapView.getMapboxMap().setCamera(cam);
+                fittedPinCount = boundsPts.size();
+                if (complete) cameraFittedOnce = true;
+            } catch (Throwable t) {
+                Log.w(TAG, "cameraForCoordinates failed", t);
+            }
+        }
+    }
+
+    private void cancelGeocoding() {
+        for (GeocodePipeline.Run run : geocodeRuns) run.cancel();
+        geocodeRuns.clear();
+    }
+
     // Checks for location permissions and requests them if necessary
     private void checkPermissionsAndUseLocation() {
         if (ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
@@ -414,41 +455,17 @@ public class MapFragment extends Fragment implements FilterBottomSheetFragment.L
         }
     }
 
-    // Ensures the background thread executor is running
-    private ExecutorService ensureExec() {
-        if (exec == null || exec.isShutdown() || exec.isTerminated()) {
-            exec = Executors.newSingleThreadExecutor();
-        }
-        return exec;
-    }
-
-    // Constructs a full address string from an animal's contact info for geocoding
-    private String buildAddressQuery(Animal a) {
-        if (a == null || a.contact == null || a.contact.address == null) return "Toronto, ON, Canada";
-        StringBuilder sb = new StringBuilder();
-        append(sb, a.contact.address.address1);
-        append(sb, a.contact.address.address2);
-        append(sb, a.contact.address.city);
-        append(sb, a.contact.address.state);
-        if (notEmpty(a.contact.address.postcode)) {
-            if (sb.length() > 0) sb.append(", ");
-            sb.append(a.contact.address.postcode.trim());
-        }
-        if (notEmpty(a.contact.address.country)) {
-            sb.append(", ").append(a.contact.address.country.trim());
+    // Ensures the geocoding pipeline is running
+    private GeocodePipeline ensurePipeline() {
+        if (geocoder == null) {
+            geocoder = new GeocodePipeline(GEOCODE_PARALLELISM, GEOCODE_TIMEOUT_MS);
         }
-        return (sb.length() == 0) ? "Toronto, ON, Canada" : sb.toString();
+        return geocoder;
     }
 
-    private static boolean notEmpty(String s) {
-        return s != null && !s.trim().isEmpty();
-    }
-
-    private static void append(StringBuilder sb, String s) {
-        if (notEmpty(s)) {
-            if (sb.length() > 0) sb.append(", ");
-            sb.append(s.trim());
-        }
+    // Canonical geocoding query for an animal's contact address, so equivalent spellings share one lookup
+    private AddressKey buildAddressQuery(Animal a) {
+        return (a != null && a.contact != null) ? AddressKey.of(a.contact.address) : AddressKey.FALLBACK;
     }
 
     // Fragment lifecycle methods to manage the MapView
@@ -478,9 +495,19 @@ public class MapFragment extends Fragment implements FilterBottomSheetFragment.L
             mapView.onDestroy();
             mapView = null;
         }
-        if (exec != null) {
-            exec.shutdownNow();
-            exec = null;
+        cancelGeocoding();
+        pins.reset(-1); // the next view starts from whatever list is current then
+        if (encoder != null) {
+            encoder.shutdownNow();
+            encoder = null;
+        }
+        mainHandler.removeCallbacksAndMessages(null);
+        flushScheduled.set(false);
+        unflushedPins.set(0);
+        mapStyle = null;
+        if (geocoder != null) {
+            geocoder.shutdown();
+            geocoder = null;
         }
     }
 
@@ -496,17 +523,10 @@ public class MapFragment extends Fragment implements FilterBottomSheetFragment.L
         cameraFittedOnce = false; // Reset camera flag to allow zooming to new results
     }
 
-    // Helper to find an animal object from the current list by its ID
+    // Looks an animal of the current results up by its ID through the view model's index
     @Nullable
     private Animal findAnimalById(long id) {
-        List<Animal> currentAnimals = sharedVm.results().getValue();
-        if (currentAnimals == null) return null;
-        for (Animal animal : currentAnimals) {
-            if (animal.id == id) {
-                return animal;
-            }
-        }
-        return null;
+        return sharedVm.animalById(id);
     }
 
     // Displays the bottom info window for a specific animal
@@ -528,6 +548,15 @@ public class MapFragment extends Fragment implements FilterBottomSheetFragment.L
         infoWindow.setVisibility(View.VISIBLE);
     }
 
+    // Reads a feature's numeric id array as Mapbox hands it back, without any JSON text parsing
+    private static List<Long> idsOf(@Nullable JsonElement prop) {
+        List<Long> ids = new ArrayList<>();
+        if (prop == null || !prop.isJsonArray()) return ids;
+        JsonArray arr = prop.getAsJsonArray();
+        for (int i = 0; i < arr.size(); i++) ids.add(arr.get(i).getAsLong());
+        return ids;
+    }
+
     // Shows a dialog with a list of pets when a group pin is tapped
     private void showPetListDialog(List<Long> animalIds) {
         if (animalIds == null || animalIds.isEmpty() || getContext() == null) return;
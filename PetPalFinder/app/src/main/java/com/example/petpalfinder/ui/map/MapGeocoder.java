@@ -1,77 +1,183 @@
 package com.example.petpalfinder.ui.map;
 
+import android.content.Context;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 
 import com.example.petpalfinder.BuildConfig;
+import com.example.petpalfinder.model.opencage.OpenCageResponse;
+import com.example.petpalfinder.network.RetrofitClient;
 import com.mapbox.geojson.Point;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
+import retrofit2.Call;
+import retrofit2.Response;
 
 public final class MapGeocoder {
     private static final String TAG = "MapGeocoder";
-    private static final OkHttpClient CLIENT = new OkHttpClient();
-    private static final Map<String, Point> CACHE = new ConcurrentHashMap<>();
+    // Shelters rarely move; an address OpenCage can't place is retried sooner
+    private static final long FOUND_TTL_MS = TimeUnit.DAYS.toMillis(30);
+    private static final long NO_RESULT_TTL_MS = TimeUnit.DAYS.toMillis(3);
+    // HTTP errors and timeouts: not persisted, just enough to stop a refresh from hammering the API
+    private static final long FAILURE_TTL_MS = TimeUnit.MINUTES.toMillis(2);
+    private static final GeocodeCache CACHE = new GeocodeCache();
+
+    // One lookup per normalized query; concurrent callers for the same query wait on it
+    private static final Map<String, CompletableFuture<Point>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final AtomicLong COALESCED = new AtomicLong();
+    private static final AtomicBoolean KEY_WARNED = new AtomicBoolean();
+    private static final AtomicLong OFFLINE_HITS = new AtomicLong();
+    @Nullable private static volatile Context appContext;
 
     private MapGeocoder() {}
 
+    /** Enables the persistent cache and the offline centroid table; call once before geocoding. */
+    public static void init(Context context) {
+        appContext = context.getApplicationContext();
+        CACHE.attach(context);
+    }
+
+    /**
+     * Addresses without a street line are answered from the bundled city {@link CentroidTable};
+     * full street addresses, and anything the table doesn't know, go through {@link #geocode(String, long)}.
+     */
+    @Nullable
+    static Point geocode(AddressKey key, long timeoutMs) {
+        if (!key.hasStreet) {
+            Point p = CentroidTable.get(appContext).lookup(key);
+            if (p != null) {
+                OFFLINE_HITS.incrementAndGet();
+                return p;
+            }
+        }
+        return geocode(key.query, timeoutMs);
+    }
+
+    /** Blocking; call from a background thread. */
     @Nullable
     public static Point geocode(String query) {
+        return geocode(query, 0);
+    }
+
+    /** As above, giving up on the network lookup after {@code timeoutMs} (0 = client defaults). */
+    @Nullable
+    public static Point geocode(String query, long timeoutMs) {
         if (query == null || query.trim().isEmpty()) return null;
         String q = query.trim();
-        if (CACHE.containsKey(q)) return CACHE.get(q);
+        String key = GeocodeCache.normalize(q);
+        GeocodeCache.Lookup cached = CACHE.get(key);
+        if (cached != null) return cached.point;
 
-        try {
-            String key = BuildConfig.OPEN_CAGE_API_KEY; // exposed from build.gradle.kts
-            if (key == null || key.isEmpty()) {
+        String apiKey = BuildConfig.OPEN_CAGE_API_KEY; // exposed from build.gradle.kts
+        if (apiKey == null || apiKey.isEmpty()) {
+            // Nothing will change until the app is rebuilt, so say it once and skip the network
+            if (KEY_WARNED.compareAndSet(false, true)) {
                 Log.w(TAG, "OpenCage key missing (BuildConfig.OPEN_CAGE_API_KEY empty).");
+            }
+            return null;
+        }
+
+        CompletableFuture<Point> mine = new CompletableFuture<>();
+        CompletableFuture<Point> leader = IN_FLIGHT.putIfAbsent(key, mine);
+        if (leader != null) {
+            COALESCED.incrementAndGet();
+            return await(leader, q);
+        }
+        Point p = null;
+        try {
+            // The previous leader may have finished between our cache check and putIfAbsent
+            GeocodeCache.Lookup fresh = CACHE.peek(key);
+            p = (fresh != null) ? fresh.point : fetch(q, key, apiKey, timeoutMs);
+            return p;
+        } finally {
+            IN_FLIGHT.remove(key, mine);
+            mine.complete(p);
+        }
+    }
+
+    @Nullable
+    private static Point fetch(String q, String key, String apiKey, long timeoutMs) {
+        Log.d(TAG, "GET geocode q=" + q);
+        Call<OpenCageResponse> call = RetrofitClient.openCage().forwardGeocode(q, apiKey, 1, 1);
+        if (timeoutMs > 0) call.timeout().timeout(timeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            Response<OpenCageResponse> res = call.execute();
+            if (!res.isSuccessful() || res.body() == null) {
+                Log.w(TAG, "HTTP " + res.code() + " for: " + q);
+                CACHE.put(key, null, FAILURE_TTL_MS, false);
                 return null;
             }
-            String url = "https://api.opencagedata.com/geocode/v1/json?q=" +
-                    URLEncoder.encode(q, StandardCharsets.UTF_8.name()) +
-                    "&key=" + URLEncoder.encode(key, StandardCharsets.UTF_8.name()) +
-                    "&limit=1&no_annotations=1";
-            Log.d(TAG, "GET " + url.replace(key, "****")); // mask key in logs
-
-            Request req = new Request.Builder().url(url).build();
-            try (Response res = CLIENT.newCall(req).execute()) {
-                if (!res.isSuccessful() || res.body() == null) {
-                    Log.w(TAG, "HTTP " + res.code() + " for: " + q);
-                    return null;
-                }
-                String body = res.body().string();
-                JSONObject root = new JSONObject(body);
-                JSONArray results = root.optJSONArray("results");
-                if (results == null || results.length() == 0) {
-                    Log.d(TAG, "No results for: " + q);
-                    return null;
-                }
-                JSONObject first = results.getJSONObject(0);
-                JSONObject geom = first.getJSONObject("geometry");
-                double lat = geom.getDouble("lat");
-                double lng = geom.getDouble("lng");
-                Point p = Point.fromLngLat(lng, lat);
-                CACHE.put(q, p);
-                Log.d(TAG, "OK " + q + " -> " + lat + "," + lng);
-                return p;
+            List<OpenCageResponse.Result> results = res.body().results;
+            if (results == null || results.isEmpty() || results.get(0).geometry == null) {
+                Log.d(TAG, "No results for: " + q);
+                CACHE.put(key, null, NO_RESULT_TTL_MS, true);
+                return null;
             }
+            OpenCageResponse.Geometry geom = results.get(0).geometry;
+            double lat = geom.lat;
+            double lng = geom.lng;
+            Point p = Point.fromLngLat(lng, lat);
+            CACHE.put(key, p, FOUND_TTL_MS, true);
+            Log.d(TAG, "OK " + q + " -> " + lat + "," + lng);
+            return p;
         } catch (Exception e) {
+            if (abandoned(call, e)) {
+                // We gave up on the answer, the address didn't fail; the next caller asks again
+                Log.d(TAG, "geocode abandoned for: " + q);
+                return null;
+            }
             Log.w(TAG, "geocode error for: " + q, e);
+            CACHE.put(key, null, FAILURE_TTL_MS, false);
             return null;
         }
     }
 
+    /**
+     * True when the lookup was cut short by an interrupt (e.g. the map's pool being shut down) or a
+     * cancelled call, as opposed to a timeout or a network error. OkHttp reports both interrupts and
+     * call timeouts as {@link InterruptedIOException}; only the latter says "timeout".
+     */
+    private static boolean abandoned(Call<?> call, Exception e) {
+        if (call.isCanceled() || Thread.currentThread().isInterrupted()) return true;
+        return e instanceof InterruptedIOException
+                && !(e instanceof SocketTimeoutException)
+                && !"timeout".equals(e.getMessage());
+    }
+
+    @Nullable
+    private static Point await(CompletableFuture<Point> leader, String q) {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Log.w(TAG, "geocode error for: " + q, e.getCause());
+            return null;
+        }
+    }
+
+    /** Fraction of lookups answered from the memory or disk cache. */
+    public static double cacheHitRate() {
+        return CACHE.hitRate();
+    }
+
+    public static String cacheStats() {
+        return OFFLINE_HITS.get() + " offline centroid hits, " + CACHE.stats() + ", "
+                + COALESCED.get() + " lookups joined an in-flight request";
+    }
+
     @Nullable
     public static Point test() {
         return geocode("Toronto, ON, Canada");
@@ -0,0 +1,207 @@
+package com.example.petpalfinder.ui.map;
+
+import androidx.annotation.Nullable;
+
+import com.example.petpalfinder.model.petfinder.Animal;
+import com.example.petpalfinder.ui.search.PetSearchViewModel;
+import com.mapbox.bindgen.Value;
+import com.mapbox.geojson.Point;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental model of the map's pins for one result list.
+ *
+ * Result pages are appended, so each emission only contributes the animals after the ones already
+ * taken. Placeholder rows of pages that are out of memory are skipped and taken once their page is
+ * reloaded. New animals are resolved against addresses geocoded earlier (or still being geocoded) and only
+ * unknown addresses are handed back for lookup. Every location group caches its encoded feature and
+ * is re-encoded only when animals join it, so an update costs the delta plus one list.
+ *
+ * Features are built directly as Mapbox {@link Value} trees, never as JSON text, with group ids as a
+ * numeric {@code animalIds} array. Thread-safe: geocoding threads resolve while a background
+ * thread takes snapshots for the main thread to apply.
+ */
+final class MapPinModel {
+
+    private static final class Group {
+        final Point point;
+        final List<Animal> animals = new ArrayList<>();
+        @Nullable Value feature; // null = changed since the last snapshot
+
+        Group(Point point) { this.point = point; }
+    }
+
+    /** Source data ready to hand to Mapbox, built off the main thread. */
+    static final class Snapshot {
+        final Value data;
+        final List<Point> points;
+        final int changed;
+        final int epoch;
+
+        Snapshot(Value data, List<Point> points, int changed, int epoch) {
+            this.data = data;
+            this.points = points;
+            this.changed = changed;
+            this.epoch = epoch;
+        }
+    }
+
+    private static final Value TYPE_FEATURE = new Value("Feature");
+    private static final Value TYPE_POINT = new Value("Point");
+    private static final Value TYPE_COLLECTION = new Value("FeatureCollection");
+    private static final Value TRUE = new Value(true);
+
+    private int epoch;
+    // Rows of the result list already taken; placeholder rows leave gaps until they are reloaded
+    private final BitSet taken = new BitSet();
+    // Epoch of the result list the pins were built from, see PetSearchViewModel.listEpochOf
+    private int listEpoch = -1;
+    private final Map<String, String> queryByOrg = new HashMap<>();
+    private final Map<String, Point> resolved = new HashMap<>();
+    private final Set<String> unresolvable = new HashSet<>();
+    private final Map<String, List<Animal>> waiting = new HashMap<>();
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+
+    /** True if a list of {@code listEpoch} is the one this model was built from, possibly with pages added. */
+    synchronized boolean continues(int listEpoch) {
+        return listEpoch == this.listEpoch;
+    }
+
+    /** Forgets every pin, for results of a new {@code listEpoch}. */
+    synchronized void reset(int listEpoch) {
+        this.listEpoch = listEpoch;
+        epoch++;
+        taken.clear();
+        queryByOrg.clear();
+        resolved.clear();
+        unresolvable.clear();
+        waiting.clear();
+        groups.clear();
+    }
+
+    /**
+     * Takes the animals of {@code results} not taken yet, skipping placeholders. Those at an already
+     * geocoded address are placed right away; the returned addresses still need a lookup, reported
+     * back via {@link #resolve}.
+     */
+    synchronized List<AddressKey> accept(List<Animal> results, AddressResolver addresses) {
+        List<AddressKey> toLookup = new ArrayList<>();
+        for (int i = taken.nextClearBit(0); i < results.size(); i = taken.nextClearBit(i + 1)) {
+            Animal a = results.get(i);
+            if (PetSearchViewModel.isPlaceholder(a)) continue;
+            taken.set(i);
+            // One lookup per organization, and one per distinct address across organizations
+            String q = (a.organization_id != null) ? queryByOrg.get(a.organization_id) : null;
+            AddressKey key = null;
+            if (q == null) {
+                key = addresses.keyFor(a);
+                q = key.query;
+                if (a.organization_id != null) queryByOrg.put(a.organization_id, q);
+            }
+            Point p = resolved.get(q);
+            if (p != null) {
+                place(a, p);
+            } else if (unresolvable.contains(q)) {
+                // geocoded before without a result
+            } else if (waiting.containsKey(q)) {
+                waiting.get(q).add(a);
+            } else {
+                List<Animal> w = new ArrayList<>();
+                w.add(a);
+                waiting.put(q, w);
+                toLookup.add(key != null ? key : addresses.keyFor(a));
+            }
+        }
+        return toLookup;
+    }
+
+    /** Places every animal waiting on {@code query}; a null point drops them, as before. */
+    synchronized void resolve(String query, @Nullable Point p) {
+        List<Animal> w = waiting.remove(query);
+        if (p == null) {
+            unresolvable.add(query);
+            return;
+        }
+        resolved.put(query, p);
+        if (w != null) for (Animal a : w) place(a, p);
+    }
+
+    /** Bumped by {@link #reset}; a snapshot from an older epoch belongs to a previous search. */
+    synchronized int epoch() { return epoch; }
+
+    /** The whole FeatureCollection, re-encoding only groups that changed since the last snapshot. */
+    synchronized Snapshot snapshot() {
+        ArrayList<Value> features = new ArrayList<>(groups.size());
+        List<Point> points = new ArrayList<>(groups.size());
+        int changed = 0;
+        for (Group g : groups.values()) {
+            if (g.feature == null) {
+                g.feature = encode(g);
+                changed++;
+            }
+            features.add(g.feature);
+            points.add(g.point);
+        }
+        HashMap<String, Value> fc = new HashMap<>();
+        fc.put("type", TYPE_COLLECTION);
+        fc.put("features", new Value(features));
+        return new Snapshot(new Value(fc), points, changed, epoch);
+    }
+
+    synchronized int featureCount() { return groups.size(); }
+
+    private void place(Animal a, Point p) {
+        String key = String.format(Locale.US, "%.4f,%.4f", p.latitude(), p.longitude());
+        Group g = groups.get(key);
+        if (g == null) {
+            g = new Group(p);
+            groups.put(key, g);
+        }
+        g.animals.add(a);
+        g.feature = null;
+    }
+
+    private static Value encode(Group g) {
+        ArrayList<Value> coordinates = new ArrayList<>(2);
+        coordinates.add(new Value(g.point.longitude()));
+        coordinates.add(new Value(g.point.latitude()));
+        HashMap<String, Value> geometry = new HashMap<>();
+        geometry.put("type", TYPE_POINT);
+        geometry.put("coordinates", new Value(coordinates));
+
+        HashMap<String, Value> props = new HashMap<>();
+        if (g.animals.size() == 1) { // Single pet at this location
+            Animal singlePet = g.animals.get(0);
+            props.put("animalId", new Value(singlePet.id));
+            if (singlePet.name != null) props.put("name", new Value(singlePet.name));
+        } else { // Multiple pets at this location
+            props.put("isGroup", TRUE);
+            ArrayList<Value> ids = new ArrayList<>(g.animals.size());
+            for (Animal pet : g.animals) {
+                ids.add(new Value(pet.id));
+            }
+            props.put("animalIds", new Value(ids));
+            props.put("count", new Value((long) g.animals.size()));
+        }
+
+        HashMap<String, Value> feature = new HashMap<>();
+        feature.put("type", TYPE_FEATURE);
+        feature.put("geometry", new Value(geometry));
+        feature.put("properties", new Value(props));
+        return new Value(feature);
+    }
+
+    /** Builds the geocoding key for an animal; supplied by the fragment. */
+    interface AddressResolver {
+        AddressKey keyFor(Animal a);
+    }
+}
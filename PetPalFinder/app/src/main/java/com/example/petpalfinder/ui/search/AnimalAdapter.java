@@ -6,66 +6,83 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.example.petpalfinder.R;
 import com.example.petpalfinder.model.petfinder.Animal;
-import com.example.petpalfinder.model.petfinder.Photo;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Rows of animals keyed by {@link Animal#id}. Lists are diffed on a background thread, so an
+ * appended page dispatches a range insert and unchanged rows are neither rebound nor reloaded.
+ * Rows arrive as precomputed {@link AnimalRow}s, so binding only assigns fields. Every submitted
+ * list must be a new instance rather than a mutated one.
+ */
 public class AnimalAdapter extends RecyclerView.Adapter<AnimalAdapter.VH> {
 
     public interface OnClick { void onAnimal(Animal a); }
 
-    private final List<Animal> data = new ArrayList<>();
+    private static final DiffUtil.ItemCallback<AnimalRow> DIFF = new DiffUtil.ItemCallback<AnimalRow>() {
+        @Override public boolean areItemsTheSame(@NonNull AnimalRow a, @NonNull AnimalRow b) {
+            return a.id == b.id;
+        }
+
+        @Override public boolean areContentsTheSame(@NonNull AnimalRow a, @NonNull AnimalRow b) {
+            // Pages keep their rows, so this is nearly always the identity check
+            return a == b || a.sameContent(b);
+        }
+    };
+
+    private final AsyncListDiffer<AnimalRow> differ = new AsyncListDiffer<>(this, DIFF);
     private final OnClick onClick;
 
-    public AnimalAdapter(OnClick onClick) { this.onClick = onClick; }
+    public AnimalAdapter(OnClick onClick) {
+        this.onClick = onClick;
+        setHasStableIds(true);
+    }
+
+    /** Shows {@code items}, building their rows here; fine for short lists such as favorites. */
+    public void setItems(@Nullable List<Animal> items) {
+        if (items == null) {
+            differ.submitList(null);
+            return;
+        }
+        submitRows(Arrays.asList(AnimalRow.of(items)));
+    }
 
-    public void setItems(List<Animal> items) {
-        data.clear();
-        if (items != null) data.addAll(items);
-        notifyDataSetChanged();
+    void submitRows(@Nullable List<AnimalRow> rows) {
+        differ.submitList(rows);
     }
 
     @NonNull @Override public VH onCreateViewHolder(@NonNull ViewGroup p, int vType) {
         View v = LayoutInflater.from(p.getContext()).inflate(R.layout.item_animal, p, false);
-        return new VH(v);
+        VH h = new VH(v);
+        v.setOnClickListener(click -> {
+            if (h.row != null && h.row.animal != null) onClick.onAnimal(h.row.animal);
+        });
+        return h;
     }
 
     @Override public void onBindViewHolder(@NonNull VH h, int pos) {
-        final Animal a = data.get(pos);
-        h.name.setText(a.name != null ? a.name : "(Unnamed)");
-        String meta = (a.age != null ? a.age : "?") + " • " + (a.gender != null ? a.gender : "?") + " • " + (a.size != null ? a.size : "?");
-        h.meta.setText(meta);
-
-        if (a.distance != null) {
-            double km = a.distance * 1.60934;
-            h.distance.setText(String.format(java.util.Locale.US, "%.1f km", km));
-        } else {
-            h.distance.setText("");
-        }
-
-        String img = firstPhoto(a.photos);
-        Glide.with(h.img.getContext()).load(img).placeholder(R.drawable.ic_paw).into(h.img);
-        h.itemView.setOnClickListener(new View.OnClickListener() {
-            @Override public void onClick(View v) { onClick.onAnimal(a); }
-        });
+        AnimalRow row = differ.getCurrentList().get(pos);
+        h.row = row;
+        h.name.setText(row.name);
+        h.meta.setText(row.meta);
+        h.distance.setText(row.distance);
+        Glide.with(h.img.getContext()).load(row.photoUrl).placeholder(R.drawable.ic_paw).into(h.img);
     }
 
-    @Override public int getItemCount() { return data.size(); }
+    @Override public int getItemCount() { return differ.getCurrentList().size(); }
 
-    private String firstPhoto(List<Photo> photos) {
-        if (photos == null || photos.isEmpty()) return null;
-        if (photos.get(0).medium != null) return photos.get(0).medium;
-        if (photos.get(0).small != null) return photos.get(0).small;
-        if (photos.get(0).large != null) return photos.get(0).large;
-        return photos.get(0).full;
-    }
+    @Override public long getItemId(int pos) { return differ.getCurrentList().get(pos).id; }
 
     static class VH extends RecyclerView.ViewHolder {
         ImageView img; TextView name; TextView meta; TextView distance;
+        @Nullable AnimalRow row;
         VH(@NonNull View v) {
             super(v);
             img = v.findViewById(R.id.img);
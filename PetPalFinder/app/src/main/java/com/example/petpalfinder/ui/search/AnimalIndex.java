@@ -0,0 +1,91 @@
+package com.example.petpalfinder.ui.search;
+
+import com.example.petpalfinder.model.petfinder.Animal;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Row positions in the current results keyed by {@link Animal#id}, for constant-time lookups from
+ * pin taps. Positions rather than animals are stored so the index never holds on to an evicted page.
+ *
+ * Open addressing with linear probing over parallel {@code long[]}/{@code int[]} arrays, so ids are
+ * never boxed; positions are stored plus one so that 0 marks an empty slot. Grows by doubling past
+ * a 0.5 load factor and is only ever cleared as a whole, so no tombstones are needed. Not
+ * thread-safe, main thread only.
+ */
+final class AnimalIndex {
+    private static final int MIN_CAPACITY = 64;
+
+    private long[] keys = new long[MIN_CAPACITY];
+    private int[] values = new int[MIN_CAPACITY];
+    private int size;
+
+    int size() { return size; }
+
+    /** Row of the animal with {@code id}, or -1. */
+    int positionOf(long id) {
+        int mask = keys.length - 1;
+        for (int i = slot(id, mask); values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == id) return values[i] - 1;
+        }
+        return -1;
+    }
+
+    /** Indexes a page merged into the results at row {@code offset}; a repeated id keeps the newest row. */
+    void addAll(int offset, List<Animal> page) {
+        ensureCapacity(size + page.size());
+        for (int i = 0; i < page.size(); i++) {
+            Animal a = page.get(i);
+            if (a != null) insert(a.id, offset + i + 1);
+        }
+    }
+
+    void clear() {
+        if (size == 0) return;
+        if (keys.length > MIN_CAPACITY) {
+            // Drop the arrays a long scroll grew rather than keep them around for the next search
+            keys = new long[MIN_CAPACITY];
+            values = new int[MIN_CAPACITY];
+        } else {
+            Arrays.fill(values, 0);
+        }
+        size = 0;
+    }
+
+    private void insert(long id, int value) {
+        int mask = keys.length - 1;
+        int i = slot(id, mask);
+        while (values[i] != 0) {
+            if (keys[i] == id) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = id;
+        values[i] = value;
+        size++;
+    }
+
+    private void ensureCapacity(int wanted) {
+        if (wanted * 2 <= keys.length) return;
+        int capacity = keys.length;
+        while (wanted * 2 > capacity) capacity <<= 1;
+
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) insert(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int slot(long id, int mask) {
+        // Fibonacci hashing spreads sequential Petfinder ids across the table
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.petpalfinder.ui.search;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.petpalfinder.data.AnimalVocabulary;
+import com.example.petpalfinder.model.petfinder.Animal;
+import com.example.petpalfinder.model.petfinder.Photo;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Everything a results row shows, formatted ahead of time so binding is plain field assignment.
+ * Built on the fetching thread when a page arrives (see {@link PagedAnimalList.Page}). Immutable.
+ */
+final class AnimalRow {
+    private static final double KM_PER_MILE = 1.60934;
+
+    final long id;
+    @NonNull final String name;
+    @NonNull final String meta;
+    @NonNull final String distance;
+    @Nullable final String photoUrl;
+    // What a tap opens; null for a placeholder
+    @Nullable final Animal animal;
+
+    private AnimalRow(long id, @NonNull String name, @NonNull String meta, @NonNull String distance,
+                      @Nullable String photoUrl, @Nullable Animal animal) {
+        this.id = id;
+        this.name = name;
+        this.meta = meta;
+        this.distance = distance;
+        this.photoUrl = photoUrl;
+        this.animal = animal;
+    }
+
+    static AnimalRow of(@NonNull Animal a) {
+        return new AnimalRow(a.id,
+                a.name != null ? a.name : "(Unnamed)",
+                AnimalVocabulary.meta(a.age, a.gender, a.size),
+                a.distance != null ? String.format(Locale.US, "%.1f km", a.distance * KM_PER_MILE) : "",
+                firstPhoto(a.photos),
+                a);
+    }
+
+    static AnimalRow[] of(@NonNull List<Animal> animals) {
+        AnimalRow[] rows = new AnimalRow[animals.size()];
+        for (int i = 0; i < rows.length; i++) rows[i] = of(animals.get(i));
+        return rows;
+    }
+
+    /** Stand-in for a row whose page is being fetched again; see {@link PagedAnimalList#isPlaceholder}. */
+    static AnimalRow placeholder(@NonNull Animal placeholder) {
+        return new AnimalRow(placeholder.id, "Loading…", "", "", null, null);
+    }
+
+    /** True if the two rows would look the same on screen. */
+    boolean sameContent(@NonNull AnimalRow other) {
+        return name.equals(other.name)
+                && meta.equals(other.meta)
+                && distance.equals(other.distance)
+                && Objects.equals(photoUrl, other.photoUrl);
+    }
+
+    @Nullable
+    private static String firstPhoto(@Nullable List<Photo> photos) {
+        if (photos == null || photos.isEmpty()) return null;
+        if (photos.get(0).medium != null) return photos.get(0).medium;
+        if (photos.get(0).small != null) return photos.get(0).small;
+        if (photos.get(0).large != null) return photos.get(0).large;
+        return photos.get(0).full;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.petpalfinder.ui.search;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.petpalfinder.model.petfinder.Animal;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The results of one search as a read-only list over the pages it was fetched in.
+ *
+ * Appending a page, evicting one or swapping a reloaded one in copies the page table, never the
+ * rows, so a long scroll costs O(pages) per update instead of O(rows). Pages outside the window
+ * around the viewport are {@link #evict evicted}, which drops their rows: they read as
+ * {@link #isPlaceholder placeholders} until the page is reloaded and swapped in through
+ * {@link #replace}. Every change yields a new list, so whoever was handed the old one (a list differ,
+ * the map) keeps a consistent snapshot and sees the change as a new list. Each page also carries the
+ * {@link AnimalRow display rows} of its animals, built with it on the fetching thread and exposed
+ * through {@link #rows()}. Every list carries the {@link #epoch} of the search it belongs to, kept by
+ * appends and reloads, so observers can tell another page of the same results from results that
+ * started over. Immutable and safe to read from any thread.
+ */
+final class PagedAnimalList extends AbstractList<Animal> implements RandomAccess {
+
+
+    /** One fetched page, starting at row {@link #offset} of the results. */
+    static final class Page {
+        final int offset;
+        final int size;
+        @Nullable private final Chunk chunk; // null once evicted
+
+        /** Builds the page's display rows too, so construct it off the main thread. */
+        Page(int offset, @NonNull List<Animal> animals) {
+            this(offset, animals.size(), new Chunk(animals));
+        }
+
+        private Page(int offset, int size, @Nullable Chunk chunk) {
+            this.offset = offset;
+            this.size = size;
+            this.chunk = chunk;
+        }
+
+        /**
+         * A new page for the same rows, holding {@code animals} fetched again. Fewer animals than
+         * before make a shorter page: the results lost rows since the page was first fetched.
+         */
+        Page reloaded(@NonNull List<Animal> animals) {
+            return new Page(offset, animals.size() > size ? animals.subList(0, size) : animals);
+        }
+
+        int end() { return offset + size; }
+
+        /** False once evicted; the page then has to be reloaded to show its rows again. */
+        boolean isResident() { return chunk != null; }
+
+        @Nullable
+        List<Animal> animals() {
+            return (chunk != null) ? chunk.animals : null;
+        }
+    }
+
+    // A page's animals and their display rows, evicted together
+    private static final class Chunk {
+        final List<Animal> animals;
+        final AnimalRow[] rows;
+
+        Chunk(List<Animal> animals) {
+            this.animals = animals;
+            this.rows = AnimalRow.of(animals);
+        }
+    }
+
+    /** Identifies the results this list is a page table of; see {@link PetSearchViewModel#listEpochOf}. */
+    final int epoch;
+    private final Page[] pages;
+    private final int size;
+
+    private PagedAnimalList(int epoch, Page[] pages, int size) {
+        this.epoch = epoch;
+        this.pages = pages;
+        this.size = size;
+    }
+
+    /** No rows yet, for results that start over at {@code epoch}. */
+    static PagedAnimalList empty(int epoch) {
+        return new PagedAnimalList(epoch, new Page[0], 0);
+    }
+
+    /** This list followed by {@code page}, which must start right after its last row. */
+    PagedAnimalList append(@NonNull Page page) {
+        if (page.offset != size) throw new IllegalArgumentException("page at " + page.offset + ", expected " + size);
+        if (page.size == 0) return this;
+        Page[] next = Arrays.copyOf(pages, pages.length + 1);
+        next[pages.length] = page;
+        return new PagedAnimalList(epoch, next, size + page.size);
+    }
+
+    /** This list with the rows of the page at {@code index} dropped. */
+    PagedAnimalList evict(int index) {
+        Page page = pages[index];
+        if (page.chunk == null) return this;
+        Page[] next = pages.clone();
+        next[index] = new Page(page.offset, page.size, null);
+        return new PagedAnimalList(epoch, next, size);
+    }
+
+    /**
+     * This list with the page at {@code index} swapped for a reloaded copy. If the copy is shorter the
+     * rows after it move up, so the result belongs to {@code epoch}, which the caller bumps for that;
+     * otherwise it keeps this list's epoch.
+     */
+    PagedAnimalList replace(int index, @NonNull Page page, int epoch) {
+        Page old = pages[index];
+        if (old.offset != page.offset || page.size > old.size) throw new IllegalArgumentException("not a reload of page " + index);
+        Page[] next = pages.clone();
+        next[index] = page;
+        int removed = old.size - page.size;
+        if (removed == 0) return new PagedAnimalList(this.epoch, next, size);
+        for (int i = index + 1; i < next.length; i++) {
+            Page p = next[i];
+            next[i] = new Page(p.offset - removed, p.size, p.chunk);
+        }
+        return new PagedAnimalList(epoch, next, size - removed);
+    }
+
+    int pageCount() { return pages.length; }
+
+    Page pageAt(int index) { return pages[index]; }
+
+    /** Index of the page holding row {@code position}. */
+    int pageIndexOf(int position) {
+        int lo = 0, hi = pages.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (pages[mid].offset <= position) lo = mid; else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    @Override
+    public Animal get(int position) {
+        checkIndex(position);
+        Page page = pages[pageIndexOf(position)];
+        Chunk chunk = page.chunk;
+        int i = position - page.offset;
+        if (chunk == null || i >= chunk.animals.size()) return placeholder(position);
+        return chunk.animals.get(i);
+    }
+
+    /** The display row at {@code position}, a placeholder row while its page is evicted. */
+    AnimalRow rowAt(int position) {
+        checkIndex(position);
+        Page page = pages[pageIndexOf(position)];
+        Chunk chunk = page.chunk;
+        int i = position - page.offset;
+        if (chunk == null || i >= chunk.rows.length) return AnimalRow.placeholder(placeholder(position));
+        return chunk.rows[i];
+    }
+
+    /** The display rows of this list, as a view sharing its pages. */
+    List<AnimalRow> rows() {
+        return new Rows();
+    }
+
+    @Override
+    public int size() { return size; }
+
+    private void checkIndex(int position) {
+        if (position < 0 || position >= size) throw new IndexOutOfBoundsException("index " + position + ", size " + size);
+    }
+
+    private final class Rows extends AbstractList<AnimalRow> implements RandomAccess {
+        @Override public AnimalRow get(int position) { return rowAt(position); }
+
+        @Override public int size() { return size; }
+    }
+
+    /** True for the stand-in returned for a row whose page was evicted and not reloaded yet. */
+    static boolean isPlaceholder(@NonNull Animal a) {
+        return a.id < 0; // Petfinder ids are positive
+    }
+
+    private static Animal placeholder(int position) {
+        Animal a = new Animal();
+        a.id = -1L - position; // unique per row, so stable ids and diffing still work
+        a.projected = true;
+        return a;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.petpalfinder.ui.search;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.petpalfinder.data.PagingPolicy;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Time-to-first-row and bytes per page, aggregated per {@link PagingPolicy} for the whole process
+ * so a fixed build ({@code -PPAGING_FIXED_SIZE=100}) and an adaptive one can be compared in logcat
+ * ({@code adb logcat -s PagingMetrics}).
+ */
+final class PagingMetrics {
+    private static final String TAG = "PagingMetrics";
+
+    private static final class Stats {
+        int searches;
+        long firstRowMsTotal;
+        int pages;
+        long bytesTotal;
+        int rowsTotal;
+    }
+
+    private static final Map<String, Stats> BY_POLICY = new HashMap<>();
+
+    private PagingMetrics() {}
+
+    /** Time from the user starting a search until its first row was shown. */
+    static synchronized void recordFirstRow(@NonNull PagingPolicy policy, long elapsedMs) {
+        Stats s = statsFor(policy);
+        s.searches++;
+        s.firstRowMsTotal += elapsedMs;
+        Log.i(TAG, String.format(Locale.US, "%s first row after %d ms", policy, elapsedMs));
+        logSummary();
+    }
+
+    static synchronized void recordPage(@NonNull PagingPolicy policy, long bytes, int rows) {
+        Stats s = statsFor(policy);
+        s.pages++;
+        s.bytesTotal += bytes;
+        s.rowsTotal += rows;
+        Log.d(TAG, String.format(Locale.US, "%s page: %d rows, %d bytes", policy, rows, bytes));
+    }
+
+    /** One line per policy seen so far. */
+    static synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Stats> e : BY_POLICY.entrySet()) {
+            Stats s = e.getValue();
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format(Locale.US,
+                    "%s: first row avg %d ms over %d searches, %d bytes/page avg over %d pages (%d rows/page)",
+                    e.getKey(),
+                    s.searches == 0 ? 0 : s.firstRowMsTotal / s.searches, s.searches,
+                    s.pages == 0 ? 0 : s.bytesTotal / s.pages, s.pages,
+                    s.pages == 0 ? 0 : s.rowsTotal / s.pages));
+        }
+        return sb.toString();
+    }
+
+    private static void logSummary() {
+        for (String line : summary().split("\n")) Log.i(TAG, line);
+    }
+
+    private static Stats statsFor(PagingPolicy policy) {
+        Stats s = BY_POLICY.get(policy.name);
+        if (s == null) {
+            s = new Stats();
+            BY_POLICY.put(policy.name, s);
+        }
+        return s;
+    }
+}
@@ -74,7 +74,11 @@ public class PetDetailFragment extends Fragment {
                 isLoading -> pb.setVisibility(Boolean.TRUE.equals(isLoading) ? View.VISIBLE : View.GONE));
 
         vm.error().observe(getViewLifecycleOwner(), err -> {
-            if (!TextUtils.isEmpty(err)) Toast.makeText(getContext(), err, Toast.LENGTH_LONG).show();
+            if (TextUtils.isEmpty(err)) return;
+            Toast.makeText(getContext(), err, Toast.LENGTH_LONG).show();
+            // The full record won't arrive; the listed header stays, without a blank "still loading" gap
+            Animal shown = vm.animal().getValue();
+            if (shown != null && shown.projected) desc.setText("Description unavailable.");
         });
 
         vm.animal().observe(getViewLifecycleOwner(), a -> {
@@ -139,7 +143,11 @@ public class PetDetailFragment extends Fragment {
 
             // --------- DESCRIPTION: HTML base + composed “About” (bulleted) ---------
             CharSequence about = composeDescription(a);
-            desc.setText(TextUtils.isEmpty(about) ? "No description available." : about);
+            if (a.projected) {
+                desc.setText(""); // still loading; the list projection has no description
+            } else {
+                desc.setText(TextUtils.isEmpty(about) ? "No description available." : about);
+            }
 
             // Never truncate
             desc.setSingleLine(false);
@@ -218,7 +226,9 @@ public class PetDetailFragment extends Fragment {
 
         fabFavorite.setOnClickListener(view -> vm.toggleFavorite());
 
-        vm.load(id);
+        // Coming from the results, the list projection fills the header until the full record arrives
+        PetSearchViewModel searchVm = new ViewModelProvider(requireActivity()).get(PetSearchViewModel.class);
+        vm.load(id, searchVm.animalById(id));
     }
 
     private String safe(String s) { return s == null ? "?" : s; }
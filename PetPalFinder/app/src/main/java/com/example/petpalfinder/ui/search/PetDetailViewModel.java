@@ -3,7 +3,9 @@ package com.example.petpalfinder.ui.search;
 import android.app.Application;
 import android.text.TextUtils;
 
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
@@ -15,6 +17,7 @@ import com.example.petpalfinder.model.petfinder.Animal;
 import com.example.petpalfinder.model.petfinder.Organization;
 import com.example.petpalfinder.repository.PetfinderRepository;
 
+import java.io.IOException;
 import java.util.concurrent.Executors;
 
 public class PetDetailViewModel extends AndroidViewModel {
@@ -27,7 +30,7 @@ public class PetDetailViewModel extends AndroidViewModel {
 
     public PetDetailViewModel(@NonNull Application app) {
         super(app);
-        repo = new PetfinderRepository(app);
+        repo = PetfinderRepository.get(app);
         favoriteDao = AppDatabase.getDatabase(app).favoriteDao();
     }
 
@@ -67,9 +70,22 @@ public class PetDetailViewModel extends AndroidViewModel {
     }
 
     public void load(long id) {
+        load(id, null);
+    }
+
+    /**
+     * Loads the full record for {@code id}. A {@code listed} animal from the search results is shown
+     * right away and then hydrated, so the header does not wait for the detail request. If the
+     * detail request fails the listed data stays on screen and the failure is posted to {@link #error()}.
+     */
+    @MainThread
+    public void load(long id, @Nullable Animal listed) {
+        if (listed != null) animal.setValue(listed);
+        loading.setValue(true);
         Executors.newSingleThreadExecutor().execute(() -> {
             try {
-                Animal a = repo.getAnimal(id);
+                Animal a = (listed != null) ? repo.hydrate(listed) : repo.getAnimal(id);
+                if (a == null) throw new IOException("Could not load this animal");
                 animal.postValue(a);
 
                 // also fetch org if present
@@ -9,6 +9,7 @@ import android.location.LocationManager;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -109,7 +110,7 @@ public class PetSearchFragment extends Fragment implements FilterBottomSheetFrag
             }
         });
 
-        vm.results().observe(getViewLifecycleOwner(), adapter::setItems);
+        vm.rows().observe(getViewLifecycleOwner(), adapter::submitRows);
 
         vm.getFormattedLocation().observe(getViewLifecycleOwner(), formatted -> {
             if (locationEditText != null) {
@@ -159,17 +160,41 @@ public class PetSearchFragment extends Fragment implements FilterBottomSheetFrag
         });
 
         // --- Recycler Scroll Listener ---
+        // Reports rows/second so the ViewModel can append its prefetched page before a fling reaches the end
         list.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            private int lastFirst = RecyclerView.NO_POSITION;
+            private long lastTime = 0L;
+            private float itemsPerSecond = 0f;
+
             @Override
             public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
-                if (dy <= 0) return;
+                if (dy == 0) return;
                 LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
                 if (lm == null) return;
-                int visible = lm.getChildCount();
-                int total = lm.getItemCount();
                 int first = lm.findFirstVisibleItemPosition();
-                if (first + visible >= (int) (0.8 * total)) {
-                    vm.nextPage();
+                int last = lm.findLastVisibleItemPosition();
+                if (dy < 0) {
+                    // Scrolling back only moves the window of pages kept in memory
+                    itemsPerSecond = 0f;
+                    lastFirst = RecyclerView.NO_POSITION;
+                    vm.onListScrolled(first, last, lm.getItemCount(), 0f);
+                    return;
+                }
+                long now = SystemClock.uptimeMillis();
+                if (lastFirst != RecyclerView.NO_POSITION && now > lastTime) {
+                    float instant = (first - lastFirst) * 1000f / (now - lastTime);
+                    itemsPerSecond = 0.7f * itemsPerSecond + 0.3f * instant; // smooth out jitter
+                }
+                lastFirst = first;
+                lastTime = now;
+                vm.onListScrolled(first, last, lm.getItemCount(), itemsPerSecond);
+            }
+
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView rv, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    itemsPerSecond = 0f;
+                    lastFirst = RecyclerView.NO_POSITION;
                 }
             }
         });
@@ -1,100 +1,261 @@
 package com.example.petpalfinder.ui.search;
 
 import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.lifecycle.*;
+import com.example.petpalfinder.BuildConfig;
 import com.example.petpalfinder.data.FilterParams;
+import com.example.petpalfinder.data.PagingPolicy;
 import com.example.petpalfinder.model.petfinder.Animal;
 import com.example.petpalfinder.model.petfinder.AnimalsResponse;
+import com.example.petpalfinder.repository.CallScope;
 import com.example.petpalfinder.repository.GeocodingRepository;
 import com.example.petpalfinder.repository.PetfinderRepository;
+import com.example.petpalfinder.repository.ReverseGeocodeCache;
+import com.example.petpalfinder.repository.SearchFailedException;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import retrofit2.Call;
 
 public class PetSearchViewModel extends AndroidViewModel {
-    private static final int PAGE_SIZE = 100;
+    // Small first page so rows show quickly, then 25, 50, 100... (see PagingPolicy); a build with
+    // PAGING_FIXED_SIZE set pages the old way, so PagingMetrics can compare the two
+    private static final PagingPolicy PAGING = (BuildConfig.PAGING_FIXED_SIZE > 0)
+            ? PagingPolicy.fixed(BuildConfig.PAGING_FIXED_SIZE)
+            : PagingPolicy.adaptive(25, PagingPolicy.MAX_LIMIT);
+    // Rows kept in reserve below the viewport even when the list is not moving
+    private static final int MIN_LEAD_ROWS = 20;
+    // Pages fetched ahead of the list at most, however fast it is flung
+    private static final int MAX_READY_PAGES = 3;
+    // After a failed prefetch, speculative fetches wait this long; scrolling to the end still loads
+    private static final long PREFETCH_RETRY_MS = 5000;
+    // Rows kept in memory on either side of the viewport; pages further out are evicted
+    private static final int RESIDENT_ROWS = 300;
+    private static final String LAT_LNG = "^-?[0-9.]+,-?[0-9.]+$";
 
     private final PetfinderRepository repo;
     private final GeocodingRepository geocodingRepo;
+    private final ReverseGeocodeCache reverseCache;
     private final MutableLiveData<Boolean> loading = new MutableLiveData<>(false);
     private final MutableLiveData<String> error = new MutableLiveData<>(null);
     private final MutableLiveData<List<Animal>> results = new MutableLiveData<>(Collections.emptyList());
+    private final MutableLiveData<List<AnimalRow>> rows = new MutableLiveData<>(Collections.emptyList());
     private final MutableLiveData<FilterParams> filters = new MutableLiveData<>(FilterParams.defaults(null));
     private final MutableLiveData<String> formattedLocation = new MutableLiveData<>();
-    private final AtomicBoolean isSearching = new AtomicBoolean(false);
+    // The pages behind results, and every row of them by animal id (main thread only)
+    private int listEpoch = 0;
+    private PagedAnimalList list = PagedAnimalList.empty(listEpoch);
+    private final AnimalIndex index = new AnimalIndex();
+    // Offsets of evicted pages being fetched again now that they are back near the viewport
+    private final Set<Integer> reloading = new HashSet<>();
 
-    private int currentPage = 1;
-    private int totalPages = 1;
+    // Latest-wins: every new query bumps the generation, results of older ones are dropped
+    private final AtomicInteger generation = new AtomicInteger();
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private CallScope inFlight = new CallScope();
+    @Nullable private Call<?> pendingGeocode;
+    // Location whose pendingGeocode has not answered yet
+    @Nullable private String geocodingQuery;
+    @Nullable private String activeQuery;
+
+    // Speculative prefetch of the pages after the last one shown, in order (main thread only)
+    private final ArrayDeque<Fetched> readyPages = new ArrayDeque<>();
+    private int prefetchingOffset = -1; // -1 = none in flight
+    private boolean appendWhenReady = false;
+    private long pageLatencyMs = 1500; // moving average of recent page fetches
+    private float scrollItemsPerSecond = 0f; // latest list velocity, sizes the prefetch
+    private long prefetchRetryAt = 0;
+
+    private int loadedCount = 0;
+    private int totalCount = 0;
+    private long searchStartedAt;
+    private boolean firstRowShown;
     public String lastLocation = null;
+    // Location the current search pages with; lastLocation may be refined to coordinates mid-search
+    @Nullable private String searchLocation;
+
+    // Typed-address searches go to Petfinder with the raw text while the geocode runs alongside
+    @Nullable private String pipelinedText;
+    @Nullable private String geocodedLatLng;
+    private boolean geocodeFailed;
+    private boolean retryWithCoordinates;
 
     private final ExecutorService io = Executors.newSingleThreadExecutor();
 
+    /** A fetched page, its display rows already built on {@link #io}. */
+    private static final class Fetched {
+        @Nullable final AnimalsResponse response;
+        final PagedAnimalList.Page page;
+        // The policy the page was fetched with, which its metrics are credited to
+        final PagingPolicy policy;
+
+        Fetched(int offset, @Nullable AnimalsResponse response, PagingPolicy policy) {
+            this.response = response;
+            this.policy = policy;
+            this.page = new PagedAnimalList.Page(offset, animalsOf(response));
+        }
+    }
+
     public PetSearchViewModel(@NonNull Application app) {
         super(app);
-        repo = new PetfinderRepository(app);
+        repo = PetfinderRepository.get(app);
         geocodingRepo = new GeocodingRepository();
+        reverseCache = ReverseGeocodeCache.get(app);
     }
 
     public LiveData<Boolean> loading() { return loading; }
     public LiveData<String> error() { return error; }
     public LiveData<List<Animal>> results() { return results; }
+    /** The results as display rows for the list, formatted off the main thread. */
+    LiveData<List<AnimalRow>> rows() { return rows; }
     public LiveData<FilterParams> getFilters() { return filters; }
     public LiveData<String> getFormattedLocation() { return formattedLocation; }
 
+    /** The animal with {@code id} among the current results, or null; constant time. */
+    @MainThread
+    @Nullable
+    public Animal animalById(long id) {
+        int pos = index.positionOf(id);
+        if (pos < 0 || pos >= list.size()) return null;
+        Animal a = list.get(pos);
+        return (a.id == id) ? a : null; // a placeholder while its page is being reloaded
+    }
+
+    /**
+     * Epoch of a list published by {@link #results()}. It changes whenever the results start over
+     * (a new location, new filters) and stays the same while pages are appended or reloaded, so an
+     * observer that keeps per-row state can tell which of the two it is looking at.
+     */
+    public int listEpochOf(@NonNull List<Animal> results) {
+        return (results instanceof PagedAnimalList) ? ((PagedAnimalList) results).epoch : 0;
+    }
+
+    /**
+     * True for a stand-in row of {@link #results()} whose page is out of memory and has not been
+     * fetched again yet; it has no real id, name or contact.
+     */
+    public static boolean isPlaceholder(@NonNull Animal a) {
+        return PagedAnimalList.isPlaceholder(a);
+    }
+
+    /** Starts a search for {@code query}; anything still running for an older query is cancelled. */
+    @MainThread
     public void searchAtLocation(String query) {
-        if (query == null || query.trim().isEmpty() || isSearching.getAndSet(true)) {
+        if (query == null || query.trim().isEmpty()) {
             return;
         }
-        loading.postValue(true);
-        results.postValue(Collections.emptyList()); // Clear old results immediately
-
-        io.execute(() -> {
-            // Check if query is already a lat,lng string
-            if (query.matches("^-?[0-9.]+,-?[0-9.]+$")) {
-                lastLocation = query;
-                String[] parts = query.split(",");
-
-                geocodingRepo.reverseSimple(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
-                        new GeocodingRepository.SimpleHandler() {
-                            @Override
-                            public void onSuccess(double lat, double lng, String formatted) {
-                                formattedLocation.postValue(formatted);
-                            }
+        // The list and the map both search on creation; join an identical search that is still running
+        if (query.equals(activeQuery) && Boolean.TRUE.equals(loading.getValue())) {
+            return;
+        }
+        activeQuery = query;
+        final int gen = restart();
+        loading.setValue(true);
 
-                            @Override
-                            public void onError(String message) {
-                                formattedLocation.postValue(query); // Fallback
-                            }
-                        }
-                );
+        // Check if query is already a lat,lng string
+        if (query.matches(LAT_LNG)) {
+            lastLocation = query;
+            searchLocation = query;
+            startReverseGeocode(gen, query);
+            runSearch(gen, 0, true);
+        } else {
+            // Petfinder takes "city, state" and postcodes as is, so search with the text right away;
+            // the geocode only provides the label and coordinates, unless Petfinder rejects the text
+            final String text = query.trim();
+            pipelinedText = text;
+            lastLocation = text;
+            searchLocation = text;
+            startForwardGeocode(gen, text);
+            runSearch(gen, 0, true);
+        }
+    }
 
-                currentPage = 1;
-                totalPages = 1;
-                runSearch(1, true);
+    /**
+     * Looks up the label for a {@code lat,lng} query. Repeat searches from about the same place reuse
+     * the label from {@link #reverseCache}; only a miss goes to the network, and its answer is cached.
+     */
+    @MainThread
+    private void startReverseGeocode(final int gen, final String query) {
+        String[] parts = query.split(",");
+        final double qLat = Double.parseDouble(parts[0]);
+        final double qLng = Double.parseDouble(parts[1]);
+        geocodingQuery = query;
+        reverseCache.find(qLat, qLng, cached -> deliver(gen, () -> {
+            if (cached != null) {
+                geocodingQuery = null;
+                formattedLocation.setValue(cached);
             } else {
-                // Forward geocode the address
-                geocodingRepo.forwardSimple(query,
-                        new GeocodingRepository.SimpleHandler() {
-                            @Override
-                            public void onSuccess(double lat, double lng, String formatted) {
-                                lastLocation = lat + "," + lng;
-                                formattedLocation.postValue(formatted);
-                                currentPage = 1;
-                                totalPages = 1;
-                                runSearch(1, true);
+                reverseGeocode(gen, query, qLat, qLng);
+            }
+        }));
+    }
+
+    @MainThread
+    private void reverseGeocode(final int gen, final String query, final double qLat, final double qLng) {
+        pendingGeocode = geocodingRepo.reverseSimple(qLat, qLng,
+                new GeocodingRepository.SimpleHandler() {
+                    @Override
+                    public void onSuccess(double lat, double lng, String formatted) {
+                        reverseCache.put(qLat, qLng, formatted);
+                        deliver(gen, () -> {
+                            geocodingQuery = null;
+                            formattedLocation.setValue(formatted);
+                        });
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        deliver(gen, () -> {
+                            geocodingQuery = null;
+                            formattedLocation.setValue(query); // Fallback
+                        });
+                    }
+                }
+        );
+    }
+
+    /** Geocodes the text of a pipelined search for its label and coordinates. */
+    @MainThread
+    private void startForwardGeocode(final int gen, final String text) {
+        geocodingQuery = text;
+        pendingGeocode = geocodingRepo.forwardSimple(text,
+                new GeocodingRepository.SimpleHandler() {
+                    @Override
+                    public void onSuccess(double lat, double lng, String formatted) {
+                        deliver(gen, () -> {
+                            geocodingQuery = null;
+                            geocodedLatLng = lat + "," + lng;
+                            lastLocation = geocodedLatLng;
+                            formattedLocation.setValue(formatted);
+                            if (retryWithCoordinates) {
+                                retryWithCoordinates = false;
+                                searchLocation = geocodedLatLng;
+                                runSearch(gen, 0, true);
                             }
+                        });
+                    }
 
-                            @Override
-                            public void onError(String message) {
-                                error.postValue("Could not find location: " + query);
-                                loading.postValue(false);
-                                isSearching.set(false);
+                    @Override
+                    public void onError(String message) {
+                        deliver(gen, () -> {
+                            geocodingQuery = null;
+                            geocodeFailed = true;
+                            formattedLocation.setValue(text);
+                            if (retryWithCoordinates) {
+                                retryWithCoordinates = false;
+                                error.setValue("Could not find location: " + text);
+                                loading.setValue(false);
                             }
-                        }
-                );
-            }
-        });
+                        });
+                    }
+                }
+        );
     }
 
     public void applyFilters(FilterParams newFilters) {
@@ -113,60 +274,376 @@ public class PetSearchViewModel extends AndroidViewModel {
         f.goodWithCats     = newFilters.goodWithCats;
 
         filters.setValue(f);
-        currentPage = 1;
-        totalPages = 1;
-        runSearch(1, true);
+        // restart() cancels a geocode of the current location that has not answered yet; issue it again
+        final String unresolved = geocodingQuery;
+        int gen = restart();
+        searchLocation = lastLocation;
+        if (unresolved != null) {
+            if (unresolved.matches(LAT_LNG)) {
+                startReverseGeocode(gen, unresolved);
+            } else {
+                pipelinedText = unresolved;
+                startForwardGeocode(gen, unresolved);
+            }
+        }
+        runSearch(gen, 0, true);
     }
 
+    @MainThread
     public void nextPage() {
+        if (loadedCount >= totalCount) return;
+        if (!readyPages.isEmpty()) {
+            // Prefetched already: append without touching the network
+            applyPage(readyPages.poll(), false);
+            startPrefetch(generation.get());
+            return;
+        }
+        if (prefetchingOffset == loadedCount) {
+            // Prefetch is on its way; append as soon as it lands
+            if (!appendWhenReady) {
+                appendWhenReady = true;
+                loading.setValue(true);
+            }
+            return;
+        }
         if (loading.getValue() != null && loading.getValue()) return;
-        if (currentPage >= totalPages) return;
-        runSearch(currentPage + 1, false);
+        runSearch(generation.get(), loadedCount, false);
+    }
+
+    /**
+     * Scroll feedback from the list. Moves the window of pages kept in memory along with the
+     * viewport, and appends the next page once the rows left below the viewport would be scrolled
+     * through in less than one recent page latency at the current velocity. The velocity also sets
+     * how far ahead {@link #startPrefetch} fetches.
+     */
+    @MainThread
+    public void onListScrolled(int firstVisible, int lastVisible, int itemCount, float itemsPerSecond) {
+        scrollItemsPerSecond = Math.max(0f, itemsPerSecond);
+        updateWindow(firstVisible, lastVisible);
+        if (itemCount - 1 - lastVisible <= leadRows()) {
+            nextPage();
+        } else {
+            startPrefetch(generation.get()); // a faster scroll may want more pages in hand
+        }
+    }
+
+    /** Rows scrolled through at the current velocity while one page is being fetched. */
+    private double leadRows() {
+        return MIN_LEAD_ROWS + scrollItemsPerSecond * pageLatencyMs / 1000.0;
+    }
+
+    /**
+     * Keeps the pages within {@link #RESIDENT_ROWS} of the viewport in memory and evicts the rest,
+     * publishing the new list if any page went. An evicted page coming back into the window is
+     * fetched again.
+     */
+    @MainThread
+    private void updateWindow(int firstVisible, int lastVisible) {
+        if (firstVisible < 0) return;
+        int from = firstVisible - RESIDENT_ROWS;
+        int to = lastVisible + RESIDENT_ROWS;
+        PagedAnimalList next = list;
+        for (int i = 0; i < list.pageCount(); i++) {
+            PagedAnimalList.Page page = list.pageAt(i);
+            if (page.end() <= from || page.offset > to) {
+                next = next.evict(i);
+            } else if (!page.isResident()) {
+                reloadPage(i);
+            }
+        }
+        if (next != list) {
+            list = next;
+            publish();
+        }
+    }
+
+    /** Fetches the rows of an evicted page again and swaps them in, in place of its placeholders. */
+    @MainThread
+    private void reloadPage(final int pageIndex) {
+        final PagedAnimalList.Page page = list.pageAt(pageIndex);
+        if (searchLocation == null || !reloading.add(page.offset)) return;
+
+        final int gen = generation.get();
+        final int epoch = list.epoch;
+        final FilterParams f = filters.getValue();
+        final String location = searchLocation;
+        final CallScope scope = inFlight;
+        final PagingPolicy policy = PAGING;
+
+        io.execute(() -> {
+            if (gen != generation.get()) return;
+            try {
+                AnimalsResponse r = repo.reloadAnimalsFrom(location, page.offset, policy, f, scope);
+                List<Animal> animals = animalsOf(r);
+                PagedAnimalList.Page fresh = page.reloaded(animals);
+                deliver(gen, () -> {
+                    if (list.epoch != epoch) return; // the results started over or moved meanwhile
+                    reloading.remove(page.offset);
+                    if (fresh.size < page.size) {
+                        list = list.replace(pageIndex, fresh, ++listEpoch);
+                        rowsMoved(page.size - fresh.size);
+                    } else {
+                        list = list.replace(pageIndex, fresh, epoch);
+                        index.addAll(page.offset, fresh.animals() != null ? fresh.animals() : animals);
+                    }
+                    publish();
+                });
+            } catch (Exception e) {
+                // The rows stay placeholders; the next scroll over them tries again
+                deliver(gen, () -> reloading.remove(page.offset));
+            }
+        });
+    }
+
+    /**
+     * The rows after a reloaded page that came back {@code removed} rows shorter moved up. Re-indexes
+     * the pages in memory and drops work aimed at the old offsets; the list's new epoch tells the
+     * map to start over.
+     */
+    @MainThread
+    private void rowsMoved(int removed) {
+        index.clear();
+        for (int i = 0; i < list.pageCount(); i++) {
+            PagedAnimalList.Page p = list.pageAt(i);
+            List<Animal> animals = p.animals();
+            if (animals != null) index.addAll(p.offset, animals);
+        }
+        loadedCount = list.size();
+        totalCount = Math.max(loadedCount, totalCount - removed);
+        reloading.clear();
+        readyPages.clear();
+        prefetchingOffset = -1;
+        if (appendWhenReady) {
+            appendWhenReady = false;
+            loading.setValue(false);
+        }
+        startPrefetch(generation.get());
+    }
+
+    /**
+     * Begins a new search generation: in-flight Petfinder calls and the pending geocode of the
+     * previous one are cancelled, and anything it still produces is dropped by {@link #deliver}.
+     * The old results are cleared right away under a new epoch, so no reload or prefetch of the
+     * previous location or filters can be spliced into the new ones.
+     */
+    @MainThread
+    private int restart() {
+        int gen = generation.incrementAndGet();
+        inFlight.cancel();
+        inFlight = new CallScope();
+        if (pendingGeocode != null) {
+            pendingGeocode.cancel();
+            pendingGeocode = null;
+        }
+        geocodingQuery = null;
+        // Prefetched pages belong to the old filters/location
+        readyPages.clear();
+        reloading.clear();
+        pipelinedText = null;
+        geocodedLatLng = null;
+        geocodeFailed = false;
+        retryWithCoordinates = false;
+        prefetchingOffset = -1;
+        prefetchRetryAt = 0;
+        appendWhenReady = false;
+        loadedCount = 0;
+        totalCount = 0;
+        searchStartedAt = SystemClock.elapsedRealtime();
+        firstRowShown = false;
+        index.clear();
+        list = PagedAnimalList.empty(++listEpoch);
+        publish();
+        return gen;
     }
 
-    private void runSearch(final int page, final boolean replace) {
-        if (lastLocation == null) {
-            loading.postValue(false);
-            isSearching.set(false);
+    /** Runs {@code update} on the main thread, unless a newer search has started by then. */
+    private void deliver(int gen, Runnable update) {
+        main.post(() -> {
+            if (gen == generation.get()) update.run();
+        });
+    }
+
+    @MainThread
+    private void runSearch(final int gen, final int offset, final boolean replace) {
+        if (searchLocation == null) {
+            loading.setValue(false);
             return;
         }
-        loading.postValue(true);
-        error.postValue(null);
+        loading.setValue(true);
+        error.setValue(null);
 
+        final int epoch = list.epoch;
         final FilterParams f = filters.getValue();
+        final String location = searchLocation;
+        final CallScope scope = inFlight;
+        final PagingPolicy policy = PAGING;
 
         io.execute(() -> {
+            if (gen != generation.get()) return; // superseded while queued
             try {
-                AnimalsResponse r = repo.searchAnimals(lastLocation, page, PAGE_SIZE, f);
-
-                if (r != null && r.pagination != null) {
-                    currentPage = Math.max(1, r.pagination.current_page);
-                    totalPages = Math.max(1, r.pagination.total_pages);
-                } else {
-                    currentPage = page;
-                    totalPages = page;
-                }
+                long started = SystemClock.elapsedRealtime();
+                AnimalsResponse r = repo.searchAnimalsFrom(location, offset, policy, f, scope);
+                long took = SystemClock.elapsedRealtime() - started;
+                Fetched page = new Fetched(offset, r, policy);
 
-                List<Animal> newList = (r != null && r.animals != null) ? r.animals : Collections.emptyList();
-                if (replace) {
-                    results.postValue(newList);
-                } else {
-                    List<Animal> cur = results.getValue();
-                    List<Animal> merged = new ArrayList<>(cur != null ? cur : Collections.emptyList());
-                    merged.addAll(newList);
-                    results.postValue(merged);
-                }
+                deliver(gen, () -> {
+                    recordFetch(policy, took, r);
+                    if (!replace && list.epoch != epoch) {
+                        // Rows moved since this page was asked for; its offset no longer fits
+                        loading.setValue(false);
+                        return;
+                    }
+                    applyPage(page, replace);
+                    startPrefetch(gen);
+                });
             } catch (Exception e) {
-                error.postValue(e.getMessage());
-            } finally {
-                loading.postValue(false);
-                isSearching.set(false);
+                deliver(gen, () -> {
+                    if (offset == 0 && isRejectedText(location, e)) {
+                        fallBackToCoordinates(gen);
+                        return;
+                    }
+                    error.setValue(e.getMessage());
+                    loading.setValue(false);
+                });
             }
         });
     }
 
+    /** True if Petfinder refused the raw text of a pipelined search, rather than failing outright. */
+    private boolean isRejectedText(String location, Exception e) {
+        return location.equals(pipelinedText)
+                && e instanceof SearchFailedException
+                && ((SearchFailedException) e).code == 400;
+    }
+
+    /** Re-runs the first page with the geocoded coordinates, waiting for the geocode if needed. */
+    @MainThread
+    private void fallBackToCoordinates(int gen) {
+        if (geocodedLatLng != null) {
+            searchLocation = geocodedLatLng;
+            runSearch(gen, 0, true);
+        } else if (geocodeFailed) {
+            error.setValue("Could not find location: " + pipelinedText);
+            loading.setValue(false);
+        } else {
+            retryWithCoordinates = true; // the geocode callback picks it up; keep the spinner
+        }
+    }
+
+    /**
+     * Fetches the pages after the last one shown into {@link #readyPages}, one at a time and without
+     * a spinner. At rest one page is kept ready; while the list moves, enough pages to cover
+     * {@link #leadRows} more rows, up to {@link #MAX_READY_PAGES}, so a fling doesn't outrun them.
+     */
+    @MainThread
+    private void startPrefetch(final int gen) {
+        if (prefetchingOffset >= 0 || searchLocation == null) return;
+        if (SystemClock.elapsedRealtime() < prefetchRetryAt) return;
+        int readyRows = 0;
+        for (Fetched p : readyPages) readyRows += p.page.size;
+        Fetched last = readyPages.peekLast();
+        if (last != null && (last.page.size == 0 || readyPages.size() >= MAX_READY_PAGES
+                || readyRows >= leadRows())) {
+            return;
+        }
+        final int offset = (last != null) ? last.page.end() : loadedCount;
+        if (offset >= totalCount) return;
+
+        final int epoch = list.epoch;
+        final FilterParams f = filters.getValue();
+        final String location = searchLocation;
+        final CallScope scope = inFlight;
+        final PagingPolicy policy = PAGING;
+        prefetchingOffset = offset;
+
+        io.execute(() -> {
+            if (gen != generation.get()) return;
+            try {
+                long started = SystemClock.elapsedRealtime();
+                AnimalsResponse r = repo.searchAnimalsFrom(location, offset, policy, f, scope);
+                long took = SystemClock.elapsedRealtime() - started;
+                Fetched page = new Fetched(offset, r, policy);
+
+                deliver(gen, () -> {
+                    recordFetch(policy, took, r);
+                    if (list.epoch != epoch) return; // rows moved; rowsMoved() already started over
+                    prefetchingOffset = -1;
+                    if (appendWhenReady) {
+                        appendWhenReady = false;
+                        applyPage(page, false);
+                    } else {
+                        readyPages.add(page);
+                    }
+                    startPrefetch(gen);
+                });
+            } catch (Exception e) {
+                deliver(gen, () -> {
+                    if (list.epoch != epoch) return;
+                    prefetchingOffset = -1;
+                    prefetchRetryAt = SystemClock.elapsedRealtime() + PREFETCH_RETRY_MS;
+                    if (appendWhenReady) {
+                        // The user is waiting on this page, so surface the failure like a normal fetch
+                        appendWhenReady = false;
+                        error.setValue(e.getMessage());
+                        loading.setValue(false);
+                    }
+                });
+            }
+        });
+    }
+
+    @MainThread
+    private void applyPage(@NonNull Fetched fetched, boolean replace) {
+        AnimalsResponse r = fetched.response;
+        int offset = fetched.page.offset;
+        List<Animal> newList = animalsOf(r);
+        loadedCount = offset + newList.size();
+        // No pagination or an empty page means there is nothing after this one
+        totalCount = (r != null && r.pagination != null && !newList.isEmpty())
+                ? Math.max(loadedCount, r.pagination.total_count)
+                : loadedCount;
+
+        if (replace && !firstRowShown && !newList.isEmpty()) {
+            firstRowShown = true;
+            PagingMetrics.recordFirstRow(fetched.policy, SystemClock.elapsedRealtime() - searchStartedAt);
+        }
+
+        // Pages are chained, not copied: an append costs the page, not the whole list
+        if (replace) {
+            index.clear();
+            list = PagedAnimalList.empty(++listEpoch);
+            // Work aimed at the list being replaced sees the new epoch and drops its result
+            reloading.clear();
+            readyPages.clear();
+            prefetchingOffset = -1;
+            appendWhenReady = false;
+        }
+        list = list.append(fetched.page);
+        index.addAll(offset, newList);
+        publish();
+        loading.setValue(false);
+    }
+
+    @MainThread
+    private void publish() {
+        results.setValue(list);
+        rows.setValue(list.rows());
+    }
+
+    private static List<Animal> animalsOf(@Nullable AnimalsResponse r) {
+        return (r != null && r.animals != null) ? r.animals : Collections.emptyList();
+    }
+
+    private void recordFetch(PagingPolicy policy, long tookMs, @Nullable AnimalsResponse r) {
+        pageLatencyMs = (pageLatencyMs * 3 + tookMs) / 4; // moving average
+        if (r != null) {
+            PagingMetrics.recordPage(policy, r.payloadBytes, r.animals != null ? r.animals.size() : 0);
+        }
+    }
+
     @Override protected void onCleared() {
         super.onCleared();
+        restart();
         io.shutdownNow();
     }
 }
\ No newline at end of file
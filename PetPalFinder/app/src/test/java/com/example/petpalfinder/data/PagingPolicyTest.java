@@ -0,0 +1,76 @@
+package com.example.petpalfinder.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PagingPolicyTest {
+
+    @Test
+    public void adaptiveGrowsAlongThePageGrid() {
+        PagingPolicy p = PagingPolicy.adaptive(25, 100);
+        int offset = 0;
+        int[] expected = {25, 25, 50, 100, 100, 100};
+        for (int limit : expected) {
+            assertEquals("limit at " + offset, limit, p.limitFor(offset));
+            assertEquals("skip at " + offset, 0, PagingPolicy.skipFor(offset, limit));
+            offset += limit;
+        }
+    }
+
+    @Test
+    public void pageStartsAtTheOffset() {
+        PagingPolicy p = PagingPolicy.adaptive(25, 100);
+        for (int offset = 0; offset <= 1000; offset += 25) {
+            int limit = p.limitFor(offset);
+            int page = PagingPolicy.pageFor(offset, limit);
+            assertEquals("offset " + offset, offset, (page - 1) * limit + PagingPolicy.skipFor(offset, limit));
+        }
+        assertEquals(1, PagingPolicy.pageFor(0, 25));
+        assertEquals(2, PagingPolicy.pageFor(25, 25));
+        assertEquals(3, PagingPolicy.pageFor(200, 100));
+    }
+
+    @Test
+    public void neverGoesBelowTheFirstPage() {
+        PagingPolicy p = PagingPolicy.adaptive(25, 100);
+        for (int offset = 0; offset <= 500; offset++) {
+            assertTrue("offset " + offset, p.limitFor(offset) >= 25);
+        }
+    }
+
+    @Test
+    public void misalignedOffsetRealignsWithOneOverlappingPage() {
+        PagingPolicy p = PagingPolicy.adaptive(25, 100);
+        // 137 has no divisor in [25, 100]: fetch page 2 of 100 and drop the 37 rows already shown
+        assertEquals(100, p.limitFor(137));
+        assertEquals(2, PagingPolicy.pageFor(137, 100));
+        assertEquals(37, PagingPolicy.skipFor(137, 100));
+        // Served in full, the page ends on the grid again
+        assertEquals(100, p.limitFor(200));
+        // An offset off the 100 grid but with a divisor in range needs no overlap
+        assertEquals(60, p.limitFor(120));
+        assertEquals(3, PagingPolicy.pageFor(120, 60));
+        assertEquals(0, PagingPolicy.skipFor(120, 60));
+    }
+
+    @Test
+    public void fixedKeepsOneSize() {
+        PagingPolicy p = PagingPolicy.fixed(100);
+        assertEquals("fixed-100", p.name);
+        assertEquals(100, p.limitFor(0));
+        assertEquals(100, p.limitFor(300));
+        assertEquals(100, p.limitFor(350)); // misaligned: overlapping page 4
+        assertEquals(4, PagingPolicy.pageFor(350, 100));
+        assertEquals(50, PagingPolicy.skipFor(350, 100));
+    }
+
+    @Test
+    public void clampsToPetfinderLimits() {
+        PagingPolicy p = PagingPolicy.adaptive(0, 500);
+        assertEquals(1, p.limitFor(0));
+        assertEquals(PagingPolicy.MAX_LIMIT, p.limitFor(1000));
+        assertEquals(PagingPolicy.MAX_LIMIT, PagingPolicy.fixed(250).limitFor(0));
+    }
+}
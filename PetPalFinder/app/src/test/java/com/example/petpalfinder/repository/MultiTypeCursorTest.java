@@ -0,0 +1,212 @@
+package com.example.petpalfinder.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.petpalfinder.data.PagingPolicy;
+import com.example.petpalfinder.model.petfinder.Animal;
+import com.example.petpalfinder.model.petfinder.AnimalsResponse;
+import com.example.petpalfinder.model.petfinder.Pagination;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MultiTypeCursorTest {
+    private static final PagingPolicy ADAPTIVE = PagingPolicy.adaptive(25, 100);
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /** Serves each type's animals page by page like Petfinder, failing on demand. */
+    private static final class FakeApi implements MultiTypeCursor.PageFetcher {
+        final Map<String, List<Animal>> data = new ConcurrentHashMap<>();
+        // Failures still to throw per type; a negative count fails forever
+        final Map<String, Integer> failing = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        FakeApi type(String type, long firstId, int count, double firstDistance, double step) {
+            List<Animal> animals = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) animals.add(animal(firstId + i, firstDistance + i * step));
+            data.put(type, animals);
+            return this;
+        }
+
+        @Override
+        public AnimalsResponse fetch(String type, int page, int limit) throws IOException {
+            calls.computeIfAbsent(type, t -> new AtomicInteger()).incrementAndGet();
+            Integer left = failing.get(type);
+            if (left != null && left != 0) {
+                failing.put(type, left - 1);
+                throw new IOException("HTTP 503 for type " + type);
+            }
+            List<Animal> all = data.get(type);
+            int from = Math.min(all.size(), (page - 1) * limit);
+            int to = Math.min(all.size(), from + limit);
+            AnimalsResponse r = new AnimalsResponse();
+            r.animals = new ArrayList<>(all.subList(from, to));
+            r.pagination = new Pagination();
+            r.pagination.total_count = all.size();
+            r.pagination.count_per_page = limit;
+            r.pagination.current_page = page;
+            return r;
+        }
+
+        int callsFor(String type) {
+            AtomicInteger n = calls.get(type);
+            return (n != null) ? n.get() : 0;
+        }
+    }
+
+    private static Animal animal(long id, double distance) {
+        Animal a = new Animal();
+        a.id = id;
+        a.distance = distance;
+        return a;
+    }
+
+    private MultiTypeCursor cursor(boolean byDistance, String... types) {
+        return new MultiTypeCursor("key", Arrays.asList(types), byDistance, ADAPTIVE, pool);
+    }
+
+    private static List<Long> ids(List<Animal> animals) {
+        List<Long> ids = new ArrayList<>(animals.size());
+        for (Animal a : animals) ids.add(a.id);
+        return ids;
+    }
+
+    @Test
+    public void mergesByDistanceAcrossPages() throws Exception {
+        FakeApi api = new FakeApi()
+                .type("Dog", 1000, 130, 0.0, 2.0)   // 0, 2, 4...
+                .type("Cat", 2000, 70, 1.0, 2.0);   // 1, 3, 5...
+        MultiTypeCursor c = cursor(true, "Dog", "Cat");
+
+        List<Animal> all = new ArrayList<>();
+        while (!c.isExhausted()) {
+            List<Animal> page = c.take(ADAPTIVE.limitFor(c.served()), api);
+            if (page.isEmpty()) break;
+            all.addAll(page);
+        }
+        assertEquals(200, all.size());
+        assertEquals(200, c.served());
+        assertEquals(200, c.totalCount());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue("out of order at " + i, all.get(i - 1).distance <= all.get(i).distance);
+        }
+    }
+
+    @Test
+    public void keepsTypeOrderWithoutDistanceSort() throws Exception {
+        FakeApi api = new FakeApi()
+                .type("Dog", 1000, 3, 5.0, 1.0)
+                .type("Cat", 2000, 3, 0.0, 1.0);
+        List<Animal> page = cursor(false, "Dog", "Cat").take(6, api);
+        assertEquals(Arrays.asList(1000L, 1001L, 1002L, 2000L, 2001L, 2002L), ids(page));
+    }
+
+    @Test
+    public void replayAtMergesTheSamePageAgain() throws Exception {
+        FakeApi api = new FakeApi()
+                .type("Dog", 1000, 300, 0.0, 1.0)
+                .type("Cat", 2000, 300, 0.5, 3.0); // uneven, so each type stops off the page grid
+        MultiTypeCursor c = cursor(true, "Dog", "Cat");
+        List<List<Long>> pages = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            offsets.add(c.served());
+            pages.add(ids(c.take(ADAPTIVE.limitFor(c.served()), api)));
+        }
+
+        for (int i = 0; i < pages.size(); i++) {
+            MultiTypeCursor replay = c.replayAt(offsets.get(i));
+            assertEquals((int) offsets.get(i), replay.served());
+            assertEquals("page at " + offsets.get(i), pages.get(i), ids(replay.take(pages.get(i).size(), api)));
+        }
+        assertNull(c.replayAt(7)); // no page started there
+    }
+
+    @Test
+    public void retriesAFailedFetch() throws Exception {
+        FakeApi api = new FakeApi()
+                .type("Dog", 1000, 10, 0.0, 2.0)
+                .type("Cat", 2000, 10, 1.0, 2.0);
+        api.failing.put("Dog", 1);
+        List<Animal> page = cursor(true, "Dog", "Cat").take(20, api);
+        assertEquals(20, page.size());
+        assertEquals(2, api.callsFor("Dog"));
+    }
+
+    @Test
+    public void servesTheOtherTypesWhileOneFails() throws Exception {
+        FakeApi api = new FakeApi()
+                .type("Dog", 1000, 10, 0.0, 2.0)
+                .type("Cat", 2000, 10, 1.0, 2.0);
+        api.failing.put("Dog", 2); // both attempts of the first page
+        MultiTypeCursor c = cursor(true, "Dog", "Cat");
+
+        List<Animal> first = c.take(5, api);
+        assertEquals(Arrays.asList(2000L, 2001L, 2002L, 2003L, 2004L), ids(first));
+        assertFalse(c.isExhausted());
+
+        // The dog type stayed live and is back in the merge on the next page
+        List<Animal> rest = c.take(20, api);
+        assertEquals(15, rest.size());
+        assertEquals(1000L, (long) rest.get(0).id);
+    }
+
+    @Test
+    public void dropsATypeAfterRepeatedFailures() throws Exception {
+        FakeApi api = new FakeApi()
+                .type("Dog", 1000, 10, 0.0, 2.0)
+                .type("Cat", 2000, 100, 1.0, 2.0);
+        api.failing.put("Dog", -1);
+        MultiTypeCursor c = cursor(true, "Dog", "Cat");
+
+        for (int i = 0; i < MultiTypeCursor.MAX_FAILURES + 2; i++) c.take(5, api);
+        assertEquals(MultiTypeCursor.MAX_FAILURES * 2, api.callsFor("Dog"));
+        assertEquals((MultiTypeCursor.MAX_FAILURES + 2) * 5, c.served());
+    }
+
+    @Test
+    public void failsThePageWhenNoTypeLoads() throws Exception {
+        FakeApi api = new FakeApi()
+                .type("Dog", 1000, 10, 0.0, 2.0)
+                .type("Cat", 2000, 10, 1.0, 2.0);
+        api.failing.put("Dog", -1);
+        api.failing.put("Cat", -1);
+        MultiTypeCursor c = cursor(true, "Dog", "Cat");
+        try {
+            c.take(5, api);
+            fail("expected the page to fail");
+        } catch (IOException expected) {
+            assertEquals(0, c.served());
+        }
+    }
+
+    @Test
+    public void unavailableTypeEndsWithoutFailingThePage() throws Exception {
+        FakeApi api = new FakeApi().type("Cat", 2000, 3, 1.0, 2.0);
+        MultiTypeCursor.PageFetcher fetcher = (type, page, limit) ->
+                "Dog".equals(type) ? null : api.fetch(type, page, limit);
+        MultiTypeCursor c = cursor(true, "Dog", "Cat");
+        assertEquals(3, c.take(25, fetcher).size());
+        assertTrue(c.isExhausted());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.petpalfinder.ui.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.example.petpalfinder.model.petfinder.Address;
+
+import org.junit.Test;
+
+public class AddressKeyTest {
+
+    private static String key(String street) {
+        Address a = new Address();
+        a.address1 = street;
+        a.city = "Toronto";
+        a.state = "ON";
+        a.postcode = "M5V 2T6";
+        a.country = "CA";
+        return AddressKey.of(a).query;
+    }
+
+    @Test
+    public void dropsUnitKeywords() {
+        String plain = key("12 Main Street");
+        assertEquals("12 main st, toronto, on, m5v 2t6, ca", plain);
+        assertEquals(plain, key("Apt 4, 12 Main Street"));
+        assertEquals(plain, key("12 Main Street Apt. 4"));
+        assertEquals(plain, key("12 Main Street Apt4"));
+        assertEquals(plain, key("12 Main Street #12"));
+        assertEquals(plain, key("Unit B, 12 Main Street"));
+        assertEquals(plain, key("Suite 300 12 Main St"));
+    }
+
+    @Test
+    public void keepsStreetWordsStartingWithAUnitKeyword() {
+        assertEquals("1 united way, toronto, on, m5v 2t6, ca", key("1 United Way"));
+        assertEquals("55 aptos dr, toronto, on, m5v 2t6, ca", key("55 Aptos Dr"));
+        assertEquals("9 suiter ln, toronto, on, m5v 2t6, ca", key("9 Suiter Lane"));
+        assertNotEquals(key("1 United Way"), key("1 Way"));
+    }
+
+    @Test
+    public void dropsUnitPrefix() {
+        String plain = key("123 Main St");
+        assertEquals(plain, key("4-123 Main St"));
+        assertEquals(plain, key("B-123 Main St"));
+        assertEquals(plain, key("1203 - 123 Main St"));
+    }
+
+    @Test
+    public void keepsCivicRange() {
+        assertEquals("123-125 main st, toronto, on, m5v 2t6, ca", key("123-125 Main St"));
+        assertNotEquals(key("125 Main St"), key("123-125 Main St"));
+    }
+
+    @Test
+    public void cityKey() {
+        Address a = new Address();
+        a.city = "St. Catharines";
+        a.state = "ON";
+        a.postcode = "l2r7k4";
+        AddressKey k = AddressKey.of(a);
+        assertEquals("ca:on:st catharines", k.cityKey);
+    }
+
+    @Test
+    public void emptyAddressFallsBack() {
+        assertEquals(AddressKey.FALLBACK, AddressKey.of(null));
+        assertEquals(AddressKey.FALLBACK, AddressKey.of(new Address()));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.petpalfinder.ui.search;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.petpalfinder.model.petfinder.Animal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class AnimalIndexTest {
+
+    private static Animal animal(long id) {
+        Animal a = new Animal();
+        a.id = id;
+        return a;
+    }
+
+    private static List<Animal> page(long firstId, int count) {
+        List<Animal> animals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) animals.add(animal(firstId + i));
+        return animals;
+    }
+
+    @Test
+    public void findsRowsByIdAcrossPages() {
+        AnimalIndex index = new AnimalIndex();
+        index.addAll(0, page(70000000L, 25));
+        index.addAll(25, page(80000000L, 25));
+        assertEquals(50, index.size());
+        assertEquals(0, index.positionOf(70000000L));
+        assertEquals(24, index.positionOf(70000024L));
+        assertEquals(25, index.positionOf(80000000L));
+        assertEquals(49, index.positionOf(80000024L));
+        assertEquals(-1, index.positionOf(70000025L));
+        assertEquals(-1, index.positionOf(0L));
+    }
+
+    @Test
+    public void keepsEveryRowWhileGrowing() {
+        AnimalIndex index = new AnimalIndex();
+        for (int p = 0; p < 50; p++) {
+            index.addAll(p * 100, page(70000000L + p * 1000L, 100));
+        }
+        assertEquals(5000, index.size());
+        for (int p = 0; p < 50; p++) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(p * 100 + i, index.positionOf(70000000L + p * 1000L + i));
+            }
+        }
+        assertEquals(-1, index.positionOf(70000100L));
+    }
+
+    @Test
+    public void repeatedIdKeepsTheNewestRow() {
+        AnimalIndex index = new AnimalIndex();
+        index.addAll(0, Arrays.asList(animal(1), animal(2), animal(3)));
+        index.addAll(3, Arrays.asList(animal(2), animal(4)));
+        assertEquals(4, index.size());
+        assertEquals(3, index.positionOf(2));
+        assertEquals(2, index.positionOf(3));
+        assertEquals(4, index.positionOf(4));
+    }
+
+    @Test
+    public void reindexingAReloadedPageReplacesItsRows() {
+        AnimalIndex index = new AnimalIndex();
+        index.addAll(0, page(100, 10));
+        index.addAll(0, page(100, 10)); // same page fetched again after eviction
+        assertEquals(10, index.size());
+        assertEquals(9, index.positionOf(109));
+    }
+
+    @Test
+    public void skipsNullRows() {
+        AnimalIndex index = new AnimalIndex();
+        index.addAll(0, Arrays.asList(animal(5), null, animal(6)));
+        assertEquals(2, index.size());
+        assertEquals(2, index.positionOf(6));
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        AnimalIndex index = new AnimalIndex();
+        index.addAll(0, page(1, 1000));
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(-1, index.positionOf(1));
+        assertEquals(-1, index.positionOf(999));
+
+        // Still usable after shrinking back
+        index.addAll(0, page(5000, 3));
+        assertEquals(1, index.positionOf(5001));
+        index.addAll(3, Collections.emptyList());
+        assertEquals(3, index.size());
+    }
+}